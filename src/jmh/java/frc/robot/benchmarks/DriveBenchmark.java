@@ -0,0 +1,189 @@
+package frc.robot.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.subsystems.Drive;
+import frc.robot.subsystems.GyroIOSim;
+import frc.robot.subsystems.NavXGyro;
+import frc.robot.subsystems.SwerveModule;
+import frc.robot.subsystems.SwerveModuleIOSim;
+
+/*
+    Benchmarks for the Drive and SwerveModule code that runs on every robot loop, the
+    real classes running on their simulated IO. Each benchmark makes the same calls the
+    robot does, against a table of random inputs so the JIT cannot fold the results
+    away. Needs the desktop HAL, which the jmh task puts on the library path.
+
+    The HAL clock is paused and stepped by a loop period before each invocation, by the
+    LoopClock and OdometryClock states, outside the measured time. With the clock
+    running the samples would be microseconds apart, and the setpoint generator would
+    limit every speed to the acceleration over those microseconds.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DriveBenchmark {
+
+    private static final int INPUTS = 1024;
+    private static final int INPUT_MASK = INPUTS - 1;
+
+    private final double[] forward = new double[INPUTS];
+    private final double[] strafe = new double[INPUTS];
+    private final double[] omega = new double[INPUTS];
+    private final double[] angle = new double[INPUTS];
+    private final SwerveModuleState[][] moduleStates = new SwerveModuleState[INPUTS][4];
+    private final SwerveModuleState[] desiredStates = new SwerveModuleState[INPUTS];
+
+    private final SwerveModuleIOSim[] moduleIOs = new SwerveModuleIOSim[4];
+    private NavXGyro gyro;
+    private Drive drive;
+    private SwerveModule module;
+    private double drivePosition = 0.0;
+
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Could not initialize the HAL");
+        }
+        for (int i = 0; i < moduleIOs.length; i++) {
+            moduleIOs[i] = new SwerveModuleIOSim();
+        }
+        SimHooks.pauseTiming();
+        gyro = NavXGyro.getInstance(new GyroIOSim());
+        drive = Drive.getInstance(gyro, moduleIOs[0], moduleIOs[1], moduleIOs[2], moduleIOs[3]);
+        // The odometry Notifier is never started, updateOdometry() is benchmarked on its own
+        module = new SwerveModule(new SwerveModuleIOSim());
+
+        Random random = new Random(2023);
+        for (int i = 0; i < INPUTS; i++) {
+            forward[i] = random.nextDouble() * 2 - 1;
+            strafe[i] = random.nextDouble() * 2 - 1;
+            omega[i] = (random.nextDouble() * 2 - 1) / 45.0;
+            angle[i] = random.nextDouble() * 360 - 180;
+            for (int j = 0; j < 4; j++) {
+                moduleStates[i][j] = new SwerveModuleState(random.nextDouble() * 3,
+                    Rotation2d.fromDegrees(random.nextDouble() * 360 - 180));
+            }
+            desiredStates[i] = new SwerveModuleState(random.nextDouble() * 3,
+                Rotation2d.fromDegrees(random.nextDouble() * 360 - 180));
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & INPUT_MASK;
+        return index;
+    }
+
+    /*
+        Steps the HAL clock by one main loop before each invocation.
+    */
+    @State(Scope.Thread)
+    public static class LoopClock {
+        @Setup(Level.Invocation)
+        public void step() {
+            SimHooks.stepTimingAsync(TimedRobot.kDefaultPeriod);
+        }
+    }
+
+    /*
+        Steps the HAL clock by one odometry period before each invocation.
+    */
+    @State(Scope.Thread)
+    public static class OdometryClock {
+        @Setup(Level.Invocation)
+        public void step() {
+            SimHooks.stepTimingAsync(DriveConstants.kOdometryPeriodSeconds);
+        }
+    }
+
+    /*
+        DriveCommand driving the modules: Drive.processInput through the setpoint
+        generator to SwerveModule.setSwerve on all four modules.
+    */
+    @Benchmark
+    public void processInput(LoopClock clock) {
+        int i = next();
+        gyro.refreshSensors();
+        drive.refreshSensors();
+        drive.processInput(forward[i], strafe[i], omega[i], false, false);
+    }
+
+    /*
+        Path following: Drive.setModuleStates, desaturation, the setpoint generator and
+        SwerveModule.setDesiredState on all four modules. Desaturation scales the states
+        in place, so after the first pass over the table they are already in range.
+    */
+    @Benchmark
+    public void setModuleStates(LoopClock clock) {
+        int i = next();
+        gyro.refreshSensors();
+        drive.refreshSensors();
+        drive.setModuleStates(moduleStates[i]);
+    }
+
+    /*
+        One module's SwerveModule.setSwerve steer optimization and output.
+    */
+    @Benchmark
+    public void setSwerve(LoopClock clock) {
+        int i = next();
+        module.refreshSensors();
+        module.setSwerve(angle[i], forward[i], false);
+    }
+
+    /*
+        One module's SwerveModule.setDesiredState, velocity control and steering.
+    */
+    @Benchmark
+    public void setDesiredState(LoopClock clock, Blackhole blackhole) {
+        int i = next();
+        module.refreshSensors();
+        module.setDesiredState(desiredStates[i]);
+        blackhole.consume(module.getState());
+        blackhole.consume(module.getPosition());
+    }
+
+    /*
+        Drive.periodic logging and traction check, after the loop's sensor refresh.
+    */
+    @Benchmark
+    public void drivePeriodic(LoopClock clock) {
+        gyro.refreshSensors();
+        drive.refreshSensors();
+        drive.periodic();
+    }
+
+    /*
+        One odometry thread update, with the modules moved along together so no module
+        is flagged as slipping. Publishes a new Pose2d every update by design.
+    */
+    @Benchmark
+    public void updateOdometry(OdometryClock clock, Blackhole blackhole) {
+        int i = next();
+        drivePosition += forward[i] * 0.01;
+        for (SwerveModuleIOSim io : moduleIOs) {
+            io.setDrivePosition(drivePosition);
+        }
+        drive.updateOdometry();
+        blackhole.consume(drive.getPose());
+    }
+}
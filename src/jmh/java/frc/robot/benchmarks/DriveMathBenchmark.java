@@ -0,0 +1,120 @@
+package frc.robot.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Utility.ArcOdometry;
+import frc.robot.Utility.SwerveMath;
+import frc.robot.Utility.SwerveSetpointGenerator;
+
+/*
+    Benchmarks for the Utility math classes on their own: SwerveMath, ArcOdometry and
+    SwerveSetpointGenerator. Each runs against a table of random inputs so the JIT
+    cannot fold the results away. DriveBenchmark covers the Drive and SwerveModule code
+    that calls them.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DriveMathBenchmark {
+
+    private static final int INPUTS = 1024;
+    private static final int INPUT_MASK = INPUTS - 1;
+
+    // Same wheel base as Drive, to turn the random requests into module setpoints
+    private static final double WHEEL_BASE_LENGTH = 23.5;
+    private static final double WHEEL_BASE_WIDTH = 21.5;
+
+    private final double[] forward = new double[INPUTS];
+    private final double[] strafe = new double[INPUTS];
+    private final double[] omega = new double[INPUTS];
+    private final double[] angle = new double[INPUTS];
+
+    private final double[] moduleSpeeds = new double[SwerveMath.MODULE_COUNT];
+    private final double[] moduleAngles = new double[SwerveMath.MODULE_COUNT];
+    private final double[] fieldCentricResult = new double[2];
+    private final double[] moduleDistances = new double[SwerveMath.MODULE_COUNT];
+    private final double[] moduleAnglesRadians = new double[SwerveMath.MODULE_COUNT];
+    private final ArcOdometry odometry = new ArcOdometry(
+        new double[] { 0.3, 0.3, -0.3, -0.3 }, new double[] { 0.28, -0.28, 0.28, -0.28 },
+        DriveConstants.kOdometrySubsteps, DriveConstants.kSlipCheckUpdates, DriveConstants.kSlipToleranceMeters,
+        DriveConstants.kSlipToleranceRatio,
+        DriveConstants.kSlipSkewSeconds / (DriveConstants.kSlipCheckUpdates * DriveConstants.kOdometryPeriodSeconds),
+        DriveConstants.kSlipDropModules);
+    private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(SwerveMath.MODULE_COUNT,
+        DriveConstants.kSetpointMaxAccelMetersPerSecondSquared, DriveConstants.kSetpointMaxSteerRateRadiansPerSecond,
+        DriveConstants.kSetpointStoppedMetersPerSecond);
+
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2023);
+        for (int i = 0; i < INPUTS; i++) {
+            forward[i] = random.nextDouble() * 2 - 1;
+            strafe[i] = random.nextDouble() * 2 - 1;
+            omega[i] = (random.nextDouble() * 2 - 1) / 45.0;
+            angle[i] = random.nextDouble() * 360 - 180;
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & INPUT_MASK;
+        return index;
+    }
+
+    /*
+        SwerveMath.fieldCentric, the rotation DriveCommand.execute applies to the
+        joystick request.
+    */
+    @Benchmark
+    public void fieldCentricTransform(Blackhole blackhole) {
+        int i = next();
+        SwerveMath.fieldCentric(forward[i], strafe[i], Math.toRadians(angle[i]), fieldCentricResult);
+        blackhole.consume(fieldCentricResult[SwerveMath.FORWARD]);
+        blackhole.consume(fieldCentricResult[SwerveMath.STRAFE]);
+    }
+
+    /*
+        ArcOdometry integration of one odometry update, with the module slip check every
+        kSlipCheckUpdates updates. The random inputs make most checks flag modules.
+    */
+    @Benchmark
+    public void arcOdometryUpdate(Blackhole blackhole) {
+        int i = next();
+        for (int module = 0; module < SwerveMath.MODULE_COUNT; module++) {
+            moduleDistances[module] += forward[(i + module) & INPUT_MASK] * 0.02;
+            moduleAnglesRadians[module] = Math.toRadians(angle[(i + module) & INPUT_MASK]);
+        }
+        odometry.update(omega[i] * 10, moduleDistances, moduleAnglesRadians);
+        blackhole.consume(odometry.getX());
+        blackhole.consume(odometry.getY());
+    }
+
+    /*
+        SwerveSetpointGenerator limiting random module setpoints, which keeps it busy
+        with the steer rate search.
+    */
+    @Benchmark
+    public void setpointGenerator(Blackhole blackhole) {
+        int i = next();
+        SwerveMath.inverseKinematics(forward[i], strafe[i], omega[i], WHEEL_BASE_LENGTH, WHEEL_BASE_WIDTH,
+            moduleSpeeds, moduleAngles);
+        for (int module = 0; module < SwerveMath.MODULE_COUNT; module++) {
+            moduleAngles[module] = Math.toRadians(moduleAngles[module]);
+        }
+        setpointGenerator.calculate(moduleSpeeds, moduleAngles, 0.02);
+        blackhole.consume(moduleSpeeds[0]);
+        blackhole.consume(moduleAngles[0]);
+    }
+}
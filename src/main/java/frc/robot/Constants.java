@@ -4,7 +4,10 @@
 
 package frc.robot;
 
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
@@ -69,6 +72,49 @@ public final class Constants {
     public static final int BackRightDrive = 3;
     public static final int BackRightEncoderOffset = 0;
 
+    // Odometry runs on its own thread, faster than the 20ms main loop
+    public static final double kOdometryPeriodSeconds = 0.005;
+    // ArcOdometry substeps per update, for the steer angles and yaw changing in between
+    public static final int kOdometrySubsteps = 4;
+    public static final byte kNavXUpdateRateHz = (byte) 200;
+
+    /*
+     * Wheel slip and collision checks. ArcOdometry sums each module's motion over
+     * kSlipCheckUpdates odometry updates, one main loop, and flags a module whose
+     * motion is further from the other modules than kSlipToleranceMeters, plus
+     * kSlipToleranceRatio of the chassis motion, plus the motion kSlipSkewSeconds
+     * of sensor skew is worth. The Spark Max, Talon and navX frames are not in
+     * step, so the readings at either end of the loop can be a 5ms frame apart.
+     * That is 20mm at 4 m/s, and 13mm at a corner with the robot turning at 1
+     * rev/s. Flagged modules are only logged until the tolerance has been checked
+     * against a DataLogger recording, then kSlipDropModules leaves them out of the
+     * odometry. Once a loop
+     * the wheel speeds are checked against the navX: the turn rate the wheels give
+     * against the gyro, and the filtered acceleration the wheels give against the
+     * accelerometer. A jump in the accelerometer reading is a collision.
+     */
+    public static final int kSlipCheckUpdates = 4;
+    public static final double kSlipToleranceMeters = 0.01;
+    public static final double kSlipToleranceRatio = 0.15;
+    public static final double kSlipSkewSeconds = 0.005;
+    public static final boolean kSlipDropModules = false;
+    public static final double kSlipMaxYawRateErrorRadiansPerSecond = 0.75;
+    public static final double kSlipMaxAccelErrorMetersPerSecondSquared = 4.0;
+    public static final double kSlipAccelFilterGain = 0.2; // Per 20ms loop
+    public static final double kCollisionJerkG = 0.5; // Change in g between loops
+
+    /*
+     * SwerveSetpointGenerator limits for every drive request, teleop and paths. The
+     * acceleration is what the Neos can give without browning out, the steer rate
+     * is a little under the steer motor's free speed. A setpoint more than
+     * kSetpointStaleSeconds old is forgotten and the generator starts again from
+     * the measured module states.
+     */
+    public static final double kSetpointMaxAccelMetersPerSecondSquared = 6.0;
+    public static final double kSetpointMaxSteerRateRadiansPerSecond = 2.5 * Math.PI;
+    public static final double kSetpointStoppedMetersPerSecond = 0.05;
+    public static final double kSetpointStaleSeconds = 0.1;
+
     public static final class ModuleConstants {
       public static final double kWheelDiameterMeters = Units.inchesToMeters(4);
       public static final double kDriveMotorGearRatio = 1 / 6.429;
@@ -78,6 +124,21 @@ public final class Constants {
       public static final double kDriveEncoderRPM2MeterPerSec = kDriveEncoderRot2Meter / 60;
       public static final double kTurningEncoderRPM2RadPerSec = kTurningEncoderRot2Rad / 60;
       public static final double kPTurning = 0.5;
+
+      // Neo free speed at the wheel
+      public static final double kDriveFreeSpeedMetersPerSecond = 5676.0 / 60.0 * kDriveEncoderRot2Meter;
+
+      /*
+       * With kDriveVelocityControl setDesiredState runs the drive motors on the Spark
+       * Max velocity loop instead of open loop percent output. The loop works in meters
+       * per second through the encoder velocity conversion factor. kS is a guess and kV
+       * is worked out from the Neo free speed, so it stays off until SysId has
+       * characterized the drive and its kS, kV and P are put in here.
+       */
+      public static final boolean kDriveVelocityControl = false;
+      public static final double kDriveVelocityP = 0.05; // Output per meter per second of error
+      public static final double kDriveKS = 0.15; // Volts
+      public static final double kDriveKV = 12.0 / kDriveFreeSpeedMetersPerSecond; // Volts per meter per second
     }
 
     public static final class FrameConstants {
@@ -119,4 +180,40 @@ public final class Constants {
   public static final class IntakeConstants {
     public static final int intakeMotorId = 25;
   }
+
+  public static final class VisionConstants {
+    public static final String kCameraName = "photonvision";
+    // How often the vision thread checks for a new frame, faster than the camera runs
+    public static final double kVisionPeriodSeconds = 0.01;
+    // Camera on the front of the frame facing forward, measure on the robot
+    public static final Transform3d kRobotToCamera = new Transform3d(
+        new Translation3d(Units.inchesToMeters(12), 0, Units.inchesToMeters(20)), new Rotation3d());
+    public static final double kCameraDiagonalFovDegrees = 70;
+    public static final int kCameraWidth = 640;
+    public static final int kCameraHeight = 480;
+    public static final double kSimMaxRangeMeters = 6;
+    public static final double kSimMinTargetAreaPixels = 10;
+
+    // Single tag estimates with more ambiguity than this are dropped
+    public static final double kMaxAmbiguity = 0.2;
+    // Tags further than this are too noisy to use
+    public static final double kMaxTagDistanceMeters = 5;
+    // Standard deviation of one tag seen at 1m, grows with the square of distance
+    public static final double kSingleTagStdDevMeters = 0.5;
+    public static final double kMultiTagStdDevMeters = 0.2;
+    // Only trust the heading from vision when several tags are seen, the gyro is better
+    public static final double kSingleTagStdDevRadians = 1e3;
+    public static final double kMultiTagStdDevRadians = 0.5;
+
+    // How far back poses are kept, vision older than this is dropped
+    public static final double kPoseHistorySeconds = 1.5;
+    // How much odometry is trusted against vision, the wpilib pose estimator defaults
+    public static final double kStateStdDevMeters = 0.1;
+    public static final double kStateStdDevRadians = 0.1;
+    // Measurements further than this from where we were are outliers
+    public static final double kVisionMaxErrorMeters = 1.0;
+    public static final double kVisionMaxErrorDegrees = 15;
+    // After this many outliers in a row, trust the camera over odometry again
+    public static final int kVisionMaxRejectionsInARow = 10;
+  }
 }
@@ -0,0 +1,181 @@
+package frc.robot;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Utility.SwerveMath;
+import frc.robot.Utility.SwerveSetpointGenerator;
+import frc.robot.Utility.Telemetry;
+import frc.robot.commands.Autos;
+import frc.robot.subsystems.Drive;
+import frc.robot.subsystems.SwerveModule;
+import frc.robot.subsystems.SwerveModuleIONull;
+import frc.robot.subsystems.SwerveModuleIOSim;
+
+/*
+    Runs the autonomous control code many thousands of times while the robot is
+    disabled, so the JIT has compiled it before autonomousInit instead of the first
+    seconds of the first path running interpreted.
+
+    Each iteration does what one loop of PPSwerveControllerCommand and Drive.setModuleStates
+    does: sample a trajectory, run the holonomic PID controller, the swerve kinematics
+    and desaturation, the setpoint generator, then SwerveModule.setDesiredState with its
+    steer math.
+    It also runs the teleop drive math and a PIDController.
+
+    The iterations drive private modules, never the drive's own, so the warm-up sends
+    nothing to the real motor controllers and leaves the drive's steer targets and
+    setpoints alone. Half the iterations go to a module on SwerveModuleIOSim and half
+    to one on SwerveModuleIONull. With a single IO class the io call sites in
+    SwerveModule would be compiled as direct calls to the simulation, which the first
+    SwerveModuleIOReal call in autonomous would throw away, recompiling the whole
+    method. With two, the compiled sites already dispatch on the receiver.
+
+    run() is called from disabledPeriodic and only works for a few milliseconds each
+    call. The time of the first and last batch is published to show the speedup, and
+    Robot publishes the time of the first autonomous loop to compare runs with and
+    without the warm-up.
+*/
+public class JitWarmup {
+
+    private static final int TOTAL_ITERATIONS = 20000; // Well past the C2 compile thresholds
+    private static final int BATCH_ITERATIONS = 250;
+    private static final long BUDGET_NANOS_PER_CALL = 4_000_000;
+    private static final int SAMPLES_PER_TRAJECTORY = 500;
+
+    private static final Telemetry.NumberSignal firstBatchSignal =
+        Telemetry.addNumber("JitWarmup/First Batch us", Telemetry.SLOW);
+    private static final Telemetry.NumberSignal lastBatchSignal =
+        Telemetry.addNumber("JitWarmup/Last Batch us", Telemetry.SLOW);
+    private static final Telemetry.NumberSignal progressSignal =
+        Telemetry.addNumber("JitWarmup/Iterations", Telemetry.SLOW);
+
+    private boolean enabled = true;
+    private int iterations = 0;
+    private long firstBatchNanos = -1;
+
+    private PathPlannerTrajectory trajectory;
+    private PPHolonomicDriveController controller;
+    private PIDController pidController;
+    private SwerveModule simModule;
+    private SwerveModule nullModule;
+    private SwerveDriveKinematics kinematics;
+    private SwerveSetpointGenerator setpointGenerator;
+    private final double[] moduleSpeeds = new double[SwerveMath.MODULE_COUNT];
+    private final double[] moduleAngles = new double[SwerveMath.MODULE_COUNT];
+    private final double[] fieldCentricResult = new double[2];
+    private final Transform2d trackingError = new Transform2d(
+        new Translation2d(0.05, -0.03), Rotation2d.fromDegrees(2));
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isDone() {
+        return iterations >= TOTAL_ITERATIONS;
+    }
+
+    /*
+        Run warm-up batches for up to BUDGET_NANOS_PER_CALL.
+    */
+    public void run() {
+        if (!enabled || isDone()) {
+            return;
+        }
+        if (simModule == null) {
+            setup();
+        }
+
+        long deadline = System.nanoTime() + BUDGET_NANOS_PER_CALL;
+        while (!isDone() && System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            runBatch();
+            long batchNanos = System.nanoTime() - start;
+            if (firstBatchNanos < 0) {
+                firstBatchNanos = batchNanos;
+                firstBatchSignal.set(batchNanos / 1e3);
+            }
+            lastBatchSignal.set(batchNanos / 1e3);
+        }
+        progressSignal.set(iterations);
+
+        if (isDone()) {
+            // Let the objects go, the compiled code stays
+            trajectory = null;
+            controller = null;
+            pidController = null;
+            simModule = null;
+            nullModule = null;
+            setpointGenerator = null;
+        }
+    }
+
+    private void setup() {
+        trajectory = Autos.CENTER_RAMP.load().get(0);
+        controller = new PPHolonomicDriveController(
+            new PIDController(AutoConstants.kPXController, 0, 0),
+            new PIDController(AutoConstants.kPYController, 0, 0),
+            new PIDController(AutoConstants.kPThetaController, 1, 0));
+        pidController = new PIDController(0.0082, 0, 0);
+        kinematics = DriveConstants.FrameConstants.kDriveKinematics;
+        setpointGenerator = new SwerveSetpointGenerator(SwerveMath.MODULE_COUNT,
+            DriveConstants.kSetpointMaxAccelMetersPerSecondSquared,
+            DriveConstants.kSetpointMaxSteerRateRadiansPerSecond, DriveConstants.kSetpointStoppedMetersPerSecond);
+
+        simModule = new SwerveModule(new SwerveModuleIOSim());
+        nullModule = new SwerveModule(new SwerveModuleIONull());
+        // Keep the scheduler from calling their periodic methods
+        CommandScheduler.getInstance().unregisterSubsystem(simModule, nullModule);
+    }
+
+    private void runBatch() {
+        double totalTime = trajectory.getTotalTimeSeconds();
+        for (int i = 0; i < BATCH_ITERATIONS; i++, iterations++) {
+            SwerveModule module = (iterations & 1) == 0 ? simModule : nullModule;
+            double time = (iterations % SAMPLES_PER_TRAJECTORY) * totalTime / SAMPLES_PER_TRAJECTORY;
+            PathPlannerState desired = (PathPlannerState) trajectory.sample(time);
+            Pose2d current = desired.poseMeters.plus(trackingError);
+
+            // PPSwerveControllerCommand.execute and Drive.setModuleStates
+            ChassisSpeeds speeds = controller.calculate(current, desired);
+            SwerveModuleState[] states = kinematics.toSwerveModuleStates(speeds);
+            SwerveDriveKinematics.desaturateWheelSpeeds(states,
+                DriveConstants.FrameConstants.kPhysicalMaxSpeedMetersPerSecond / 2);
+            for (int m = 0; m < SwerveMath.MODULE_COUNT; m++) {
+                moduleSpeeds[m] = states[m].speedMetersPerSecond;
+                moduleAngles[m] = states[m].angle.getRadians();
+            }
+            setpointGenerator.calculate(moduleSpeeds, moduleAngles, TimedRobot.kDefaultPeriod);
+            for (int m = 0; m < SwerveMath.MODULE_COUNT; m++) {
+                module.setDesiredState(moduleSpeeds[m], Math.toDegrees(moduleAngles[m]));
+            }
+
+            // DriveCommand and Drive.processInput
+            SwerveMath.fieldCentric(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond,
+                current.getRotation().getRadians(), fieldCentricResult);
+            SwerveMath.inverseKinematics(fieldCentricResult[SwerveMath.FORWARD], fieldCentricResult[SwerveMath.STRAFE],
+                speeds.omegaRadiansPerSecond / 45.0, Drive.WHEEL_BASE_LENGTH, Drive.WHEEL_BASE_WIDTH,
+                moduleSpeeds, moduleAngles);
+            double maxSpeed = SwerveMath.maxSpeed(moduleSpeeds);
+            for (int m = 0; m < SwerveMath.MODULE_COUNT; m++) {
+                module.setSwerve(moduleAngles[m], moduleSpeeds[m] / maxSpeed, false);
+            }
+
+            // DriveBalanceCommand
+            pidController.calculate(current.getRotation().getDegrees(), 0);
+        }
+    }
+}
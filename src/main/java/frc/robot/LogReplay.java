@@ -0,0 +1,429 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.button.CommandJoystick;
+import frc.robot.Constants.OperatorConstants;
+import frc.robot.Utility.DataLogReader;
+import frc.robot.Utility.LogReplaySource;
+import frc.robot.commands.ArmPositionCommand;
+import frc.robot.commands.DriveBalanceCommand;
+import frc.robot.commands.DriveCommand;
+import frc.robot.subsystems.Arm;
+import frc.robot.subsystems.ArmIOReplay;
+import frc.robot.subsystems.Drive;
+import frc.robot.subsystems.GyroIOReplay;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.IntakeIOReplay;
+import frc.robot.subsystems.NavXGyro;
+import frc.robot.subsystems.SwerveModuleIOReplay;
+
+/*
+    Replays a DataLogger file recorded on the robot through the real Drive, DriveCommand,
+    DriveBalanceCommand and ArmPositionCommand code, as fast as the machine allows, and
+    reports how far the replayed outputs are from the recorded ones and what each loop
+    cost to compute.
+
+    Every recorded loop is one replayed loop. The subsystems are built on replay IO
+    implementations that return the recorded sensor values for the current loop, robot
+    time is stepped by the recorded loop period, and the driver station state and driver
+    sticks are set from the log. The commands are scheduled and cancelled when the log
+    shows they started and ended on the robot. The odometry thread is stopped and the
+    pose is updated once per loop, so a replay gives the same result every time.
+
+    Outputs are compared only on loops where the command that sets them was running.
+    Autonomous path following is not replayed, so when the recorded pose jumps because
+    a path reset the odometry, the replayed pose is reset to match and the reset is
+    counted. The pose is also updated once per loop instead of every 5ms, so it is held
+    to a looser tolerance than the motor outputs.
+
+    Run with ./gradlew replayLog -Plog=data-1681234567890.bin. Optional arguments:
+        --tolerance <n>        largest allowed output difference, 1e-6 by default
+        --pose-tolerance <n>   largest allowed pose difference in meters or degrees,
+                               0.05 by default
+
+    Exits with a non-zero status if any signal is over its tolerance.
+*/
+public final class LogReplay {
+
+    private static final double POSE_RESET_METERS = 0.5;
+
+    public static void main(String... args) throws IOException {
+        File logFile = null;
+        double tolerance = 1e-6;
+        double poseTolerance = 0.05;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--tolerance")) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--pose-tolerance")) {
+                poseTolerance = Double.parseDouble(args[++i]);
+            } else {
+                logFile = new File(args[i]);
+            }
+        }
+        if (logFile == null) {
+            System.err.println("Usage: LogReplay <log file> [--tolerance n] [--pose-tolerance n]");
+            System.exit(1);
+        }
+
+        DataLogReader reader = new DataLogReader(logFile);
+        LogReplaySource source = new LogReplaySource(reader);
+        if (reader.getFrameCount() == 0) {
+            System.out.println(logFile + " has no recorded loops");
+            System.exit(1);
+        }
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        SimHooks.pauseTiming();
+        DriverStation.silenceJoystickConnectionWarning(true);
+        DriverStationSim.setDsAttached(true);
+
+        boolean divergent = new LogReplay(source, tolerance, poseTolerance).run();
+
+        HAL.shutdown();
+        System.exit(divergent ? 1 : 0);
+    }
+
+    private final LogReplaySource source;
+    private final DataLogReader reader;
+
+    private final NavXGyro gyro;
+    private final Drive drive;
+    private final Arm arm;
+    private final Intake intake;
+    private final SwerveModuleIOReplay[] moduleIO = new SwerveModuleIOReplay[4];
+    private final ArmIOReplay armIO;
+
+    private final DriveCommand driveCommand;
+    private final DriveBalanceCommand balanceCommand;
+    private ArmPositionCommand armCommand;
+
+    // Recorded inputs
+    private final int enabledSignal;
+    private final int autonomousSignal;
+    private final int forwardSignal;
+    private final int strafeSignal;
+    private final int omegaSignal;
+    private final int robotCentricSignal;
+    private final int driveCorrectSignal;
+    private final int zeroAngleSignal;
+    private final int[] setAngleSignals = new int[4];
+    private final int driveActiveSignal;
+    private final int balanceActiveSignal;
+    private final int armActiveSignal;
+    private final int shoulderTargetSignal;
+    private final int extensionTargetSignal;
+    private final int durationSignal;
+    private final int poseXSignal;
+    private final int poseYSignal;
+    private final int poseHeadingSignal;
+    private final int computeSignal;
+
+    private final NetworkTable driveTab = NetworkTableInstance.getDefault()
+        .getTable("Shuffleboard").getSubTable("DriveTab");
+    private static final String[] MODULE_NAMES = { "FL", "BL", "FR", "BR" };
+    private static final String[] SET_ANGLE_ENTRIES = { "LF Set Angle", "LB Set Angle", "RF Set Angle", "RBack Set Angle" };
+
+    private final List<Divergence> driveOutputs = new ArrayList<>();
+    private final List<Divergence> armOutputs = new ArrayList<>();
+    private final List<Divergence> poseValues = new ArrayList<>();
+    private int poseResets = 0;
+
+    private LogReplay(LogReplaySource source, double tolerance, double poseTolerance) {
+        this.source = source;
+        this.reader = source.getReader();
+
+        gyro = NavXGyro.getInstance(new GyroIOReplay(source));
+        for (int i = 0; i < moduleIO.length; i++) {
+            moduleIO[i] = new SwerveModuleIOReplay(source, MODULE_NAMES[i]);
+        }
+        drive = Drive.getInstance(gyro, moduleIO[0], moduleIO[1], moduleIO[2], moduleIO[3]);
+        armIO = new ArmIOReplay(source);
+        arm = Arm.getInstance(armIO);
+        intake = Intake.getInstance(new IntakeIOReplay(source));
+
+        driveCommand = new DriveCommand(drive, new CommandJoystick(OperatorConstants.LeftStick),
+            new CommandJoystick(OperatorConstants.RightStick), gyro);
+        balanceCommand = new DriveBalanceCommand(drive, gyro);
+
+        enabledSignal = source.require("Robot/Enabled");
+        autonomousSignal = source.require("Robot/Autonomous");
+        forwardSignal = source.require("DriveCommand/Stick Forward");
+        strafeSignal = source.require("DriveCommand/Stick Strafe");
+        omegaSignal = source.require("DriveCommand/Stick Omega");
+        robotCentricSignal = source.require("DriveCommand/Robot Centric");
+        driveCorrectSignal = source.require("DriveCommand/Drive Correct");
+        zeroAngleSignal = source.require("Gyro/Zero Angle");
+        for (int i = 0; i < setAngleSignals.length; i++) {
+            setAngleSignals[i] = source.require("Drive/" + MODULE_NAMES[i] + "/Set Angle");
+        }
+        driveActiveSignal = source.require("DriveCommand/Active");
+        balanceActiveSignal = source.require("DriveBalanceCommand/Active");
+        armActiveSignal = source.require("ArmPositionCommand/Active");
+        shoulderTargetSignal = source.require("ArmPositionCommand/Shoulder Target");
+        extensionTargetSignal = source.require("ArmPositionCommand/Extension Target");
+        durationSignal = source.require("ArmPositionCommand/Duration");
+        poseXSignal = source.require("Drive/Pose X");
+        poseYSignal = source.require("Drive/Pose Y");
+        poseHeadingSignal = source.require("Drive/Pose Heading");
+        computeSignal = source.require("Robot/Compute us");
+
+        for (int i = 0; i < moduleIO.length; i++) {
+            SwerveModuleIOReplay io = moduleIO[i];
+            driveOutputs.add(new Divergence("Drive/" + MODULE_NAMES[i] + "/Drive Output", io::getDriveOutput, false, tolerance));
+            driveOutputs.add(new Divergence("Drive/" + MODULE_NAMES[i] + "/Steer Target", io::getSteerTarget, false, tolerance));
+        }
+        armOutputs.add(new Divergence("Arm/Shoulder Output", armIO::getShoulderOutput, false, tolerance));
+        armOutputs.add(new Divergence("Arm/Extension Output", armIO::getExtensionOutput, false, tolerance));
+        poseValues.add(new Divergence("Drive/Pose X", () -> drive.getPose().getX(), false, poseTolerance));
+        poseValues.add(new Divergence("Drive/Pose Y", () -> drive.getPose().getY(), false, poseTolerance));
+        poseValues.add(new Divergence("Drive/Pose Heading", () -> drive.getPose().getRotation().getDegrees(), true, poseTolerance));
+    }
+
+    /*
+        Replay every recorded loop and print the report. Returns true if anything was
+        over its tolerance.
+    */
+    private boolean run() {
+        int frames = reader.getFrameCount();
+        double[] recordedCompute = new double[frames];
+        double[] replayedCompute = new double[frames];
+        int computeFrames = 0;
+
+        source.setFrame(0);
+        drive.resetOdometry(recordedPose());
+
+        long startNanos = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            source.setFrame(frame);
+            if (frame > 0) {
+                long periodMicros = reader.getTimestampMicros(frame) - reader.getTimestampMicros(frame - 1);
+                SimHooks.stepTiming(Math.max(periodMicros, 0) / 1e6);
+            }
+            applyRecordedInputs();
+
+            Pose2d recordedPose = recordedPose();
+            if (frame > 0 && recordedPose.getTranslation().getDistance(previousRecordedPose(frame)) > POSE_RESET_METERS) {
+                drive.resetOdometry(recordedPose);
+                poseResets++;
+            } else {
+                drive.updateOdometry();
+            }
+            scheduleRecordedCommands();
+
+            // Same span as the Robot/Compute us signal recorded in Robot.robotPeriodic
+            long loopStartNanos = System.nanoTime();
+            gyro.refreshSensors();
+            drive.refreshSensors();
+            arm.refreshSensors();
+            intake.refreshSensors();
+            CommandScheduler.getInstance().run();
+            long loopNanos = System.nanoTime() - loopStartNanos;
+
+            cancelEndedCommands();
+
+            boolean enabled = source.getBoolean(enabledSignal);
+            if (enabled) {
+                recordedCompute[computeFrames] = source.get(computeSignal);
+                replayedCompute[computeFrames] = loopNanos / 1e3;
+                computeFrames++;
+            }
+            if (source.getBoolean(driveActiveSignal) || source.getBoolean(balanceActiveSignal)) {
+                compare(driveOutputs, frame);
+            }
+            if (source.getBoolean(armActiveSignal)) {
+                compare(armOutputs, frame);
+            }
+            compare(poseValues, frame);
+        }
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+        double robotSeconds = (reader.getTimestampMicros(frames - 1) - reader.getTimestampMicros(0)) / 1e6;
+        CommandScheduler.getInstance().cancelAll();
+
+        System.out.printf("Replayed %d loops (%.1fs of robot time) in %.2fs, %.0fx real time%n",
+            frames, robotSeconds, wallSeconds, robotSeconds / wallSeconds);
+        System.out.printf("%-32s %8s %12s %12s %s%n", "Signal", "Loops", "Max error", "RMS error", "First over");
+        boolean divergent = false;
+        for (Divergence divergence : driveOutputs) {
+            divergent |= divergence.print();
+        }
+        for (Divergence divergence : armOutputs) {
+            divergent |= divergence.print();
+        }
+        for (Divergence divergence : poseValues) {
+            divergent |= divergence.print();
+        }
+        System.out.println("Pose resets from the recorded odometry: " + poseResets);
+
+        System.out.println();
+        System.out.printf("Compute per enabled loop (us) %8s %8s %8s %8s%n", "mean", "p50", "p99", "max");
+        printCompute("recorded, whole robot", recordedCompute, computeFrames);
+        printCompute("replayed", replayedCompute, computeFrames);
+        return divergent;
+    }
+
+    private void applyRecordedInputs() {
+        DriverStationSim.setEnabled(source.getBoolean(enabledSignal));
+        DriverStationSim.setAutonomous(source.getBoolean(autonomousSignal));
+
+        // DriveCommand negates the stick axes, see DriveCommand.execute
+        DriverStationSim.setJoystickAxisCount(OperatorConstants.LeftStick, 4);
+        DriverStationSim.setJoystickButtonCount(OperatorConstants.LeftStick, 12);
+        DriverStationSim.setJoystickAxis(OperatorConstants.LeftStick, 0, -source.get(strafeSignal));
+        DriverStationSim.setJoystickAxis(OperatorConstants.LeftStick, 1, -source.get(forwardSignal));
+        DriverStationSim.setJoystickButton(OperatorConstants.LeftStick, 1, source.getBoolean(robotCentricSignal));
+        DriverStationSim.setJoystickAxisCount(OperatorConstants.RightStick, 4);
+        DriverStationSim.setJoystickButtonCount(OperatorConstants.RightStick, 12);
+        DriverStationSim.setJoystickAxis(OperatorConstants.RightStick, 0, -source.get(omegaSignal));
+        DriverStationSim.setJoystickButton(OperatorConstants.RightStick, 1, source.getBoolean(driveCorrectSignal));
+        DriverStationSim.notifyNewData();
+
+        NavXGyro.zeroAngle = source.get(zeroAngleSignal);
+        for (int i = 0; i < setAngleSignals.length; i++) {
+            driveTab.getEntry(SET_ANGLE_ENTRIES[i]).setDouble(source.get(setAngleSignals[i]));
+        }
+    }
+
+    /*
+        The Active signals are set by initialize() and end(), so a command that was
+        running at the end of a recorded loop is scheduled before that loop runs, and one
+        that had ended is cancelled after it.
+    */
+    private void scheduleRecordedCommands() {
+        if (source.getBoolean(balanceActiveSignal) && !balanceCommand.isScheduled()) {
+            balanceCommand.schedule();
+        } else if (source.getBoolean(driveActiveSignal) && !driveCommand.isScheduled()) {
+            driveCommand.schedule();
+        }
+
+        if (source.getBoolean(armActiveSignal)) {
+            int frame = source.getFrame();
+            boolean started = frame == 0 || !reader.getBoolean(frame - 1, armActiveSignal)
+                || targetsChanged(frame);
+            if (started || armCommand == null) {
+                if (armCommand != null) {
+                    armCommand.cancel();
+                }
+                armCommand = new ArmPositionCommand(arm, source.get(shoulderTargetSignal),
+                    source.get(extensionTargetSignal), source.get(durationSignal));
+                armCommand.schedule();
+            }
+        }
+    }
+
+    private boolean targetsChanged(int frame) {
+        return reader.getDouble(frame - 1, shoulderTargetSignal) != source.get(shoulderTargetSignal)
+            || reader.getDouble(frame - 1, extensionTargetSignal) != source.get(extensionTargetSignal)
+            || reader.getDouble(frame - 1, durationSignal) != source.get(durationSignal);
+    }
+
+    private void cancelEndedCommands() {
+        if (!source.getBoolean(balanceActiveSignal) && balanceCommand.isScheduled()) {
+            balanceCommand.cancel();
+        }
+        if (!source.getBoolean(driveActiveSignal) && driveCommand.isScheduled()) {
+            driveCommand.cancel();
+        }
+        if (!source.getBoolean(armActiveSignal) && armCommand != null && armCommand.isScheduled()) {
+            armCommand.cancel();
+        }
+    }
+
+    private Pose2d recordedPose() {
+        return new Pose2d(source.get(poseXSignal), source.get(poseYSignal),
+            Rotation2d.fromDegrees(source.get(poseHeadingSignal)));
+    }
+
+    private Translation2d previousRecordedPose(int frame) {
+        return new Translation2d(
+            reader.getDouble(frame - 1, poseXSignal), reader.getDouble(frame - 1, poseYSignal));
+    }
+
+    private void compare(List<Divergence> divergences, int frame) {
+        for (Divergence divergence : divergences) {
+            divergence.add(frame);
+        }
+    }
+
+    private static void printCompute(String name, double[] values, int count) {
+        if (count == 0) {
+            System.out.printf("  %-27s no enabled loops%n", name);
+            return;
+        }
+        double[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        double sum = 0.0;
+        for (double value : sorted) {
+            sum += value;
+        }
+        System.out.printf("  %-27s %8.1f %8.1f %8.1f %8.1f%n", name, sum / count,
+            sorted[count / 2], sorted[(int) (count * 0.99)], sorted[count - 1]);
+    }
+
+    /*
+        Running difference between one recorded signal and the value the replay
+        produced for it.
+    */
+    private class Divergence {
+        private final String name;
+        private final int signal;
+        private final DoubleSupplier replayed;
+        private final boolean degrees;
+        private final double tolerance;
+        private int count = 0;
+        private double maxError = 0.0;
+        private double sumSquares = 0.0;
+        private int firstOverFrame = -1;
+
+        Divergence(String name, DoubleSupplier replayed, boolean degrees, double tolerance) {
+            this.name = name;
+            this.signal = source.require(name);
+            this.replayed = replayed;
+            this.degrees = degrees;
+            this.tolerance = tolerance;
+        }
+
+        void add(int frame) {
+            double error = replayed.getAsDouble() - source.get(signal);
+            if (degrees) {
+                error = MathUtil.inputModulus(error, -180.0, 180.0);
+            }
+            error = Math.abs(error);
+            count++;
+            sumSquares += error * error;
+            maxError = Math.max(maxError, error);
+            if (firstOverFrame < 0 && error > tolerance) {
+                firstOverFrame = frame;
+            }
+        }
+
+        /*
+            Print one line of the report. Returns true if the signal was over its tolerance.
+        */
+        boolean print() {
+            String firstOver = firstOverFrame < 0 ? "-" : String.format("%.2fs",
+                (reader.getTimestampMicros(firstOverFrame) - reader.getTimestampMicros(0)) / 1e6);
+            System.out.printf("%-32s %8d %12.3g %12.3g %s%n", name, count, maxError,
+                count == 0 ? 0.0 : Math.sqrt(sumSquares / count), firstOver);
+            return firstOverFrame >= 0;
+        }
+    }
+}
@@ -4,9 +4,18 @@
 
 package frc.robot;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Utility.AsyncLogger;
+import frc.robot.Utility.CanStatusFrames;
+import frc.robot.Utility.DataLogger;
+import frc.robot.Utility.DeviceConfigurator;
+import frc.robot.Utility.LoopProfiler;
+import frc.robot.Utility.Telemetry;
+import frc.robot.Utility.TrajectoryCache;
+import frc.robot.commands.Autos;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -19,15 +28,55 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
 
+  private static final int SCHEDULER_SECTION = LoopProfiler.register("Scheduler", 15.0);
+  private static final int LOOP_PERIOD_SECTION = LoopProfiler.register("LoopPeriod", 22.0);
+  private static final int SENSORS_SECTION = LoopProfiler.register("RefreshSensors", 2.0);
+  private static final int TELEMETRY_SECTION = LoopProfiler.register("Telemetry.flush", 1.0);
+  private static final int DATA_LOG_SECTION = LoopProfiler.register("DataLogger.endFrame", 0.5);
+  private static final int ENABLED_LOG = DataLogger.addBoolean("Robot/Enabled");
+  private static final int AUTONOMOUS_LOG = DataLogger.addBoolean("Robot/Autonomous");
+  // Sensor refresh plus scheduler time, compared against by the log replay
+  private static final int COMPUTE_LOG = DataLogger.addDouble("Robot/Compute us");
+  private long lastLoopStartNanos = 0;
+
+  private static final double DEVICE_CONFIG_TIMEOUT_SECONDS = 10.0;
+
+  private final JitWarmup m_jitWarmup = new JitWarmup();
+  // Scheduler time of the first autonomous loop, to see what the JIT warm-up saves
+  private static final Telemetry.NumberSignal autoFirstLoopSignal =
+      Telemetry.addNumber("Auto First Loop ms", Telemetry.SLOW);
+  private boolean m_firstAutonomousLoop = false;
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
    */
   @Override
   public void robotInit() {
+    // Refuse to start with status frame periods that would overload the CAN bus
+    CanStatusFrames.checkBudget();
+
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    // The motor controllers were configured in the background while the robot was
+    // built, make sure they are done before anything is commanded. The robot still
+    // runs if they are not, but the drive team has to know.
+    if (!DeviceConfigurator.awaitAll(DEVICE_CONFIG_TIMEOUT_SECONDS)) {
+      DriverStation.reportError("Motor controller configuration failed or timed out, see the console", false);
+    }
+    RobotContainer._drive.startOdometryThread();
+
+    // Every subsystem and command has registered its log signals by now
+    DataLogger.start();
+    AsyncLogger.start();
+
+    // Read every auto's trajectories on a background thread, so building the selected
+    // auto while disabled does not have to wait for them
+    for (TrajectoryCache.PathGroup group : Autos.PATH_GROUPS) {
+      group.warmUp();
+    }
   }
 
   /**
@@ -43,7 +92,42 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    long loopStartNanos = System.nanoTime();
+    if (lastLoopStartNanos != 0) {
+      // Time between loops also covers the dashboard and LiveWindow updates done by TimedRobot
+      LoopProfiler.record(LOOP_PERIOD_SECTION, loopStartNanos - lastLoopStartNanos);
+    }
+    lastLoopStartNanos = loopStartNanos;
+
+    // Read every sensor once so the subsystems and commands all see the same sample this loop
+    LoopProfiler.start(SENSORS_SECTION);
+    long computeStartNanos = System.nanoTime();
+    m_robotContainer.refreshSensors();
+    LoopProfiler.stop(SENSORS_SECTION);
+
+    LoopProfiler.start(SCHEDULER_SECTION);
+    long schedulerStartNanos = System.nanoTime();
     CommandScheduler.getInstance().run();
+    if (m_firstAutonomousLoop) {
+      autoFirstLoopSignal.set((System.nanoTime() - schedulerStartNanos) / 1e6);
+      m_firstAutonomousLoop = false;
+    }
+    DataLogger.set(COMPUTE_LOG, (System.nanoTime() - computeStartNanos) / 1e3);
+    LoopProfiler.stop(SCHEDULER_SECTION);
+
+    // Send the dashboard values written during this loop in one batch
+    LoopProfiler.start(TELEMETRY_SECTION);
+    Telemetry.flush();
+    LoopProfiler.stop(TELEMETRY_SECTION);
+
+    // Record everything sampled and commanded this loop as one log frame
+    LoopProfiler.start(DATA_LOG_SECTION);
+    DataLogger.setBoolean(ENABLED_LOG, DriverStation.isEnabled());
+    DataLogger.setBoolean(AUTONOMOUS_LOG, DriverStation.isAutonomous());
+    DataLogger.endFrame();
+    LoopProfiler.stop(DATA_LOG_SECTION);
+
+    LoopProfiler.endLoop();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -53,6 +137,12 @@ public class Robot extends TimedRobot {
   @Override
   public void disabledPeriodic() {
     RobotContainer._drive.getSteerEncoderVal();
+
+    // Build the selected auto now so autonomousInit only has to schedule it
+    m_robotContainer.prepareAutonomousCommand();
+
+    // Get the path following code compiled before it is needed
+    m_jitWarmup.run();
   }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
@@ -63,6 +153,7 @@ public class Robot extends TimedRobot {
     // schedule the autonomous command (example)
     if (m_autonomousCommand != null) {
       m_autonomousCommand.schedule();
+      m_firstAutonomousLoop = true;
     }
   }
 
@@ -4,6 +4,11 @@
 
 package frc.robot;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
 import frc.robot.Constants.ArmConstants;
 import frc.robot.Constants.OperatorConstants;
 import frc.robot.commands.DriveCommand;
@@ -13,10 +18,12 @@ import frc.robot.subsystems.Arm;
 import frc.robot.subsystems.Drive;
 import frc.robot.subsystems.Intake;
 import frc.robot.subsystems.NavXGyro;
+import frc.robot.subsystems.Vision;
 import frc.robot.commands.ArmControllerCommand;
 import frc.robot.commands.ArmPositionCommand;
 import frc.robot.commands.Autos;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -42,13 +49,24 @@ public class RobotContainer {
   public static Drive _drive = Drive.getInstance(_gyro);
   public static Intake _intake = Intake.getInstance();
   public static Arm _arm = Arm.getInstance();
+  public static Vision _vision = Vision.getInstance(_drive);
   
   public final CommandJoystick leftStick = new CommandJoystick(OperatorConstants.LeftStick);
   public final CommandJoystick rightStick = new CommandJoystick(OperatorConstants.RightStick);
   public final CommandXboxController opController = new CommandXboxController(OperatorConstants.OpController);
 
-  // Setup Sendable chooser for picking autonomous program in SmartDashboard
-  private SendableChooser<Command> m_chooser = new SendableChooser<>();
+  // Setup Sendable chooser for picking autonomous program in SmartDashboard.
+  // The chooser holds factories, only the selected routine is ever built.
+  private SendableChooser<Supplier<Command>> m_chooser = new SendableChooser<>();
+  // Same routines by name, for running them without the dashboard
+  private final Map<String, Supplier<Command>> m_autonomousOptions = new LinkedHashMap<>();
+
+  // How long the selection has to stay the same before the routine is built
+  private static final double AUTO_SELECTION_SETTLE_SECONDS = 1.0;
+  private Supplier<Command> m_lastSelection;
+  private double m_lastSelectionTime;
+  private Supplier<Command> m_preparedSelection;
+  private Command m_preparedCommand;
   
   /**
    * The container for the robot. Contains subsystems, OI devices, and commands.
@@ -71,6 +89,17 @@ public class RobotContainer {
     configureBindings();
   }
 
+  /**
+   * Sample all subsystem sensors for this loop. Called from robotPeriodic before
+   * the scheduler runs.
+   */
+  public void refreshSensors() {
+    _gyro.refreshSensors();
+    _drive.refreshSensors();
+    _arm.refreshSensors();
+    _intake.refreshSensors();
+  }
+
   /**
    * Use this method to define your trigger->command mappings. Triggers can be
    * created via the
@@ -105,7 +134,50 @@ public class RobotContainer {
    */
   public Command getAutonomousCommand() {
     // Get the selected Auto in smartDashboard
-    return m_chooser.getSelected();
+    Supplier<Command> selected = m_chooser.getSelected();
+    if (selected == null) {
+      return null;
+    }
+    Command command = selected == m_preparedSelection ? m_preparedCommand : selected.get();
+
+    // Build a fresh copy the next time the robot is disabled
+    m_preparedSelection = null;
+    m_preparedCommand = null;
+    return command;
+  }
+
+  /**
+   * Build the selected autonomous routine ahead of time, once the selection on the
+   * dashboard has stopped changing. Called from disabledPeriodic so the trajectories
+   * and command tree are ready before autonomousInit.
+   */
+  public void prepareAutonomousCommand() {
+    Supplier<Command> selected = m_chooser.getSelected();
+    double now = Timer.getFPGATimestamp();
+    if (selected != m_lastSelection) {
+      m_lastSelection = selected;
+      m_lastSelectionTime = now;
+      return;
+    }
+    if (selected == null || selected == m_preparedSelection
+        || now - m_lastSelectionTime < AUTO_SELECTION_SETTLE_SECONDS) {
+      return;
+    }
+    m_preparedCommand = selected.get();
+    m_preparedSelection = selected;
+  }
+
+  /**
+   * Factories for every autonomous routine on the chooser, by name, in the order they
+   * were added.
+   */
+  public Map<String, Supplier<Command>> getAutonomousOptions() {
+    return Collections.unmodifiableMap(m_autonomousOptions);
+  }
+
+  private void addAutonomousOption(String name, Supplier<Command> factory) {
+    m_chooser.addOption(name, factory);
+    m_autonomousOptions.put(name, factory);
   }
 
   /**
@@ -113,15 +185,15 @@ public class RobotContainer {
    */
   private void autonomousOptions() {
     // Example adding Autonomous option to chooser
-    m_chooser.addOption("Do Nothing", Autos.doNothing());
-    m_chooser.addOption("Cable Straight", Autos.cableDriveStraight(_drive, _arm, _intake));
-    m_chooser.addOption("Center Ramp", Autos.centerRamp(_drive, _gyro, _arm, _intake));
-    m_chooser.addOption("Center Ramp Cube", Autos.centerRampCube(_drive, _gyro, _arm, _intake));
-    //m_chooser.addOption("Barrier Straight", Autos.barrierDriveStraight(_drive));
-    m_chooser.addOption("Far Barrier Cube Score", Autos.farBarrierCubeScoreLow(_drive, _intake, _arm));
-    m_chooser.addOption("Barrier Cone", Autos.barrierCone(_drive, _gyro, _intake, _arm));
-    m_chooser.addOption("Blue Barrier Cone Ramp", Autos.blueBarrierConeRamp(_drive, _gyro, _intake, _arm));
-    m_chooser.addOption("DO NOT RUN - Jeremy Only", Autos.centerRampCubeTest(_drive, _gyro, _arm, _intake));
+    addAutonomousOption("Do Nothing", Autos::doNothing);
+    addAutonomousOption("Cable Straight", () -> Autos.cableDriveStraight(_drive, _arm, _intake));
+    addAutonomousOption("Center Ramp", () -> Autos.centerRamp(_drive, _gyro, _arm, _intake));
+    addAutonomousOption("Center Ramp Cube", () -> Autos.centerRampCube(_drive, _gyro, _arm, _intake));
+    //addAutonomousOption("Barrier Straight", () -> Autos.barrierDriveStraight(_drive));
+    addAutonomousOption("Far Barrier Cube Score", () -> Autos.farBarrierCubeScoreLow(_drive, _intake, _arm));
+    addAutonomousOption("Barrier Cone", () -> Autos.barrierCone(_drive, _gyro, _intake, _arm));
+    addAutonomousOption("Blue Barrier Cone Ramp", () -> Autos.blueBarrierConeRamp(_drive, _gyro, _intake, _arm));
+    addAutonomousOption("DO NOT RUN - Jeremy Only", () -> Autos.centerRampCubeTest(_drive, _gyro, _arm, _intake));
 
     
     // Put the chooser on the dashboard
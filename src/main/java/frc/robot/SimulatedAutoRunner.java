@@ -0,0 +1,202 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Utility.Telemetry;
+
+/*
+    Runs autonomous routines in simulation without the GUI or a driver station, as fast
+    as the machine allows. Robot time is paused and stepped by hand one 20ms loop at a
+    time, so the subsystems, the odometry Notifier and every Timer see the same time
+    they would on the robot no matter how fast the loop actually runs.
+
+    Run with ./gradlew simulateAutos. Optional arguments:
+        --speedup <n>   hold the run to n times real time, 0 (the default) for no limit
+        --seconds <n>   simulated length of each routine, 15 by default
+        --warmup        run JitWarmup while disabled before the first routine, the
+                        same as Robot.disabledPeriodic does
+        <name> ...      routine names from the chooser, all of them by default
+
+    Each routine prints the scheduler time of its first autonomous loop, the same
+    number Robot publishes as "Auto First Loop ms". Only the first routine of a run
+    starts with cold code, so compare the first line of a run with and without
+    --warmup to see what the warm-up saves.
+
+    Exits with a non-zero status if any routine threw an exception.
+*/
+public final class SimulatedAutoRunner {
+
+    private static final double LOOP_PERIOD = TimedRobot.kDefaultPeriod;
+    private static final double SETTLE_SECONDS = 1.0;
+    private static final double MAX_WARMUP_SECONDS = 120.0;
+
+    // Scheduler time of the first loop of the last runLoops() call
+    private static long firstLoopNanos = 0;
+
+    private SimulatedAutoRunner() {}
+
+    public static void main(String... args) {
+        double speedup = 0.0;
+        double autoSeconds = 15.0;
+        boolean warmup = false;
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--speedup")) {
+                speedup = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--warmup")) {
+                warmup = true;
+            } else if (args[i].equals("--seconds")) {
+                autoSeconds = Double.parseDouble(args[++i]);
+            } else {
+                names.addAll(Arrays.asList(args[i].split(",")));
+            }
+        }
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        SimHooks.pauseTiming();
+        DriverStation.silenceJoystickConnectionWarning(true);
+        DriverStationSim.setDsAttached(true);
+
+        RobotContainer container = new RobotContainer();
+        RobotContainer._drive.startOdometryThread();
+        Map<String, Supplier<Command>> options = container.getAutonomousOptions();
+        if (names.isEmpty()) {
+            names.addAll(options.keySet());
+        }
+
+        if (warmup) {
+            runWarmup(container);
+        }
+
+        boolean failed = false;
+        for (String name : names) {
+            Supplier<Command> factory = options.get(name.trim());
+            if (factory == null) {
+                System.out.println("Unknown autonomous routine: " + name);
+                failed = true;
+                continue;
+            }
+            failed |= !runRoutine(container, name.trim(), factory, autoSeconds, speedup);
+        }
+
+        HAL.shutdown();
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static boolean runRoutine(RobotContainer container, String name, Supplier<Command> factory,
+            double autoSeconds, double speedup) {
+        // Let the robot come to rest disabled between routines
+        setMode(false);
+        runLoops(container, SETTLE_SECONDS, speedup, null);
+
+        // Built while disabled, the same as Robot.disabledPeriodic does
+        Command command;
+        try {
+            command = factory.get();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            System.out.println(name + " FAILED to build");
+            return false;
+        }
+
+        setMode(true);
+        long startNanos = System.nanoTime();
+        double simulatedSeconds;
+        boolean ok = true;
+        try {
+            command.schedule();
+            simulatedSeconds = runLoops(container, autoSeconds, speedup, command);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            simulatedSeconds = Double.NaN;
+            ok = false;
+        }
+        boolean finished = !command.isScheduled();
+        CommandScheduler.getInstance().cancelAll();
+        setMode(false);
+
+        Pose2d pose = RobotContainer._drive.getPose();
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%-28s %-9s %6.2fs sim %6.3fs wall  first loop %6.2fms  x=%.2f y=%.2f heading=%.1f%n",
+            name, !ok ? "FAILED" : finished ? "finished" : "timed out", simulatedSeconds, wallSeconds,
+            firstLoopNanos / 1e6, pose.getX(), pose.getY(), pose.getRotation().getDegrees());
+        return ok;
+    }
+
+    /*
+        Run robot loops for up to seconds of robot time, stopping early once command
+        finishes. Returns the robot time that was run.
+    */
+    private static double runLoops(RobotContainer container, double seconds, double speedup, Command command) {
+        int loops = (int) Math.round(seconds / LOOP_PERIOD);
+        long startNanos = System.nanoTime();
+        for (int loop = 0; loop < loops; loop++) {
+            // Same order as Robot.robotPeriodic
+            container.refreshSensors();
+            long schedulerStartNanos = System.nanoTime();
+            CommandScheduler.getInstance().run();
+            if (loop == 0) {
+                firstLoopNanos = System.nanoTime() - schedulerStartNanos;
+            }
+            Telemetry.flush();
+
+            SimHooks.stepTiming(LOOP_PERIOD);
+
+            if (command != null && !command.isScheduled()) {
+                return (loop + 1) * LOOP_PERIOD;
+            }
+            if (speedup > 0) {
+                long targetNanos = startNanos + (long) ((loop + 1) * LOOP_PERIOD / speedup * 1e9);
+                long sleepNanos = targetNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    try {
+                        Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return (loop + 1) * LOOP_PERIOD;
+                    }
+                }
+            }
+        }
+        return loops * LOOP_PERIOD;
+    }
+
+    /*
+        Disabled loops with JitWarmup running, until it is done.
+    */
+    private static void runWarmup(RobotContainer container) {
+        setMode(false);
+        JitWarmup warmup = new JitWarmup();
+        int maxLoops = (int) Math.round(MAX_WARMUP_SECONDS / LOOP_PERIOD);
+        int loops = 0;
+        while (!warmup.isDone() && loops < maxLoops) {
+            container.refreshSensors();
+            CommandScheduler.getInstance().run();
+            warmup.run();
+            Telemetry.flush();
+            SimHooks.stepTiming(LOOP_PERIOD);
+            loops++;
+        }
+        System.out.printf("JIT warm-up took %d disabled loops%n", loops);
+    }
+
+    private static void setMode(boolean autonomousEnabled) {
+        DriverStationSim.setAutonomous(autonomousEnabled);
+        DriverStationSim.setEnabled(autonomousEnabled);
+        DriverStationSim.notifyNewData();
+    }
+}
@@ -0,0 +1,68 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.pathplanner.lib.PathConstraints;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Utility.TrajectoryCache;
+import frc.robot.Utility.TrajectoryTable;
+import frc.robot.commands.Autos;
+
+/*
+    Build time tool that generates every PathPlanner path into the TrajectoryTable, so
+    the robot does not generate any trajectories on boot. The table is written to
+    build/generated/deploy, which is deployed along with src/main/deploy.
+
+    Paths used by Autos are compiled with each of the constraint sets listed in
+    Autos.PATH_GROUPS. Any other .path file is compiled with the default auto speed and
+    acceleration so it can still be loaded cheaply while it is being tried out.
+
+    Run with ./gradlew compileTrajectories, the jar task does this before every deploy.
+*/
+public final class TrajectoryCompiler {
+
+    private TrajectoryCompiler() {}
+
+    public static void main(String... args) throws IOException {
+        File pathDirectory = new File(Filesystem.getDeployDirectory(), "pathplanner");
+
+        List<TrajectoryCache.PathGroup> groups = new ArrayList<>(Autos.PATH_GROUPS);
+        Set<String> names = new HashSet<>();
+        for (TrajectoryCache.PathGroup group : groups) {
+            names.add(group.getName());
+        }
+        File[] pathFiles = pathDirectory.listFiles((directory, file) -> file.endsWith(".path"));
+        if (pathFiles != null) {
+            Arrays.sort(pathFiles);
+            for (File pathFile : pathFiles) {
+                String name = pathFile.getName().substring(0, pathFile.getName().length() - ".path".length());
+                if (names.add(name)) {
+                    groups.add(new TrajectoryCache.PathGroup(name, new PathConstraints(
+                        AutoConstants.kMaxSpeedMetersPerSecond, AutoConstants.kMaxAccelerationMetersPerSecondSquared)));
+                }
+            }
+        }
+
+        List<TrajectoryTable.Entry> entries = new ArrayList<>();
+        for (TrajectoryCache.PathGroup group : groups) {
+            long pathCrc = TrajectoryCache.pathCrc(group.getName());
+            if (pathCrc == -1) {
+                System.out.println("Skipping " + group.getKey() + ", " + group.getName() + ".path does not exist");
+                continue;
+            }
+            entries.add(new TrajectoryTable.Entry(group.getKey(), pathCrc, group.generate()));
+            System.out.println("Compiled " + group.getKey());
+        }
+
+        TrajectoryTable.write(TrajectoryTable.getFile(), entries);
+        System.out.println("Wrote " + entries.size() + " path groups to " + TrajectoryTable.getFile());
+    }
+}
@@ -0,0 +1,308 @@
+package frc.robot.Utility;
+
+import java.util.Arrays;
+
+import edu.wpi.first.math.MathUtil;
+
+/*
+    Swerve odometry that integrates each update along an arc instead of a straight
+    line.
+
+    Between two updates the wheels and the gyro are sampled only at the ends. The
+    robot has really been turning the whole time, and the steer motors may have been
+    turning too. Each update is split into substeps. In every substep the gyro yaw
+    and each module's steer angle are interpolated to the middle of the substep,
+    and each module is moved an equal share of its distance. The chassis motion for
+    the substep is then the mean module motion, less the part the gyro says is
+    rotation. It is applied as a constant curvature arc (the Pose2d.exp() twist
+    formula) from the heading at the start of the substep.
+
+    The modules are also checked against each other. On a rigid chassis each
+    module's motion, less the rotation the gyro saw, is the same for every module.
+    The sensors are not sampled together though: the Spark Maxes, the steer Talons
+    and the navX each send on their own clock, so one module's reading can be a
+    frame or two older than another's. Over a single update that skew is a large
+    part of the motion, so the check runs on the motion summed over checkUpdates
+    updates instead, where a steady skew cancels out between the two ends. A
+    module that disagrees with the mean of the others by more than
+    slipToleranceMeters, plus slipToleranceRatio of that mean, plus skewRatio of
+    the distance the modules travelled in the window (the motion a frame of skew
+    is worth while the speed changes), is slipping, or was hit, or has a bad
+    encoder reading. The worst such module is flagged and the rest are checked
+    again, as long as two modules are left. If the last two still disagree there
+    is no telling which one is right, so none are flagged and isConsistent() is
+    false for that window.
+
+    Flagged modules are only reported by isModuleSlipping() unless
+    dropSlippingModules is set, in which case they are left out of the updates in
+    the next window.
+
+    The heading is the gyro yaw plus an offset set by reset(). All the state is in
+    primitives and update() allocates nothing.
+
+    Module arrays are in the same order as moduleX and moduleY, distances in meters
+    and angles in radians counter-clockwise from robot forward. Not thread safe.
+*/
+public class ArcOdometry {
+
+    private final int moduleCount;
+    private final double[] moduleX;
+    private final double[] moduleY;
+    private final int substeps;
+    private final double slipToleranceMeters;
+    private final double slipToleranceRatio;
+    private final int checkUpdates;
+    private final double skewRatio;
+    private final boolean dropSlippingModules;
+
+    // Module motion less rotation and distance travelled over the check window
+    private final double[] moveXs;
+    private final double[] moveYs;
+    private final double[] travels;
+    private int windowUpdates;
+    private final boolean[] slipping;
+    private final boolean[] used;
+    private int usedCount;
+    private boolean consistent = true;
+
+    private final double[] lastDistances;
+    private final double[] lastAngles;
+    private double lastYaw;
+    private double headingOffset;
+
+    private double x;
+    private double y;
+    private double heading;
+
+    /*
+        moduleX and moduleY are the module positions relative to the robot center in
+        meters. One substep gives the usual single arc per update. Every module is
+        always used.
+    */
+    public ArcOdometry(double[] moduleX, double[] moduleY, int substeps) {
+        this(moduleX, moduleY, substeps, 1, Double.POSITIVE_INFINITY, 0, 0, false);
+    }
+
+    /*
+        As above, checking the modules every checkUpdates updates and flagging a
+        module that disagrees with the others, see the class comment. skewRatio is
+        the sensor skew in seconds over the window length in seconds.
+    */
+    public ArcOdometry(double[] moduleX, double[] moduleY, int substeps, int checkUpdates,
+            double slipToleranceMeters, double slipToleranceRatio, double skewRatio, boolean dropSlippingModules) {
+        this.moduleCount = moduleX.length;
+        this.moduleX = moduleX.clone();
+        this.moduleY = moduleY.clone();
+        this.substeps = substeps;
+        this.checkUpdates = checkUpdates;
+        this.slipToleranceMeters = slipToleranceMeters;
+        this.slipToleranceRatio = slipToleranceRatio;
+        this.skewRatio = skewRatio;
+        this.dropSlippingModules = dropSlippingModules;
+        moveXs = new double[moduleCount];
+        moveYs = new double[moduleCount];
+        travels = new double[moduleCount];
+        slipping = new boolean[moduleCount];
+        used = new boolean[moduleCount];
+        Arrays.fill(used, true);
+        usedCount = moduleCount;
+        lastDistances = new double[moduleCount];
+        lastAngles = new double[moduleCount];
+    }
+
+    /*
+        Put the robot at x, y and heading, with the sensors currently reading yaw,
+        distances and angles.
+    */
+    public void reset(double x, double y, double heading, double yaw, double[] distances, double[] angles) {
+        this.x = x;
+        this.y = y;
+        this.heading = MathUtil.angleModulus(heading);
+        headingOffset = heading - yaw;
+        lastYaw = yaw;
+        System.arraycopy(distances, 0, lastDistances, 0, moduleCount);
+        System.arraycopy(angles, 0, lastAngles, 0, moduleCount);
+        Arrays.fill(moveXs, 0);
+        Arrays.fill(moveYs, 0);
+        Arrays.fill(travels, 0);
+        windowUpdates = 0;
+        Arrays.fill(slipping, false);
+        Arrays.fill(used, true);
+        usedCount = moduleCount;
+        consistent = true;
+    }
+
+    /*
+        Integrate from the last update to the sensors now reading yaw, distances and
+        angles. Yaw is counter-clockwise positive and continuous or wrapped, either
+        works.
+    */
+    public void update(double yaw, double[] distances, double[] angles) {
+        addToWindow(MathUtil.angleModulus(yaw - lastYaw), distances, angles);
+        double yawDelta = MathUtil.angleModulus(yaw - lastYaw) / substeps;
+        double substepHeading = heading;
+
+        for (int step = 0; step < substeps; step++) {
+            double fraction = (step + 0.5) / substeps;
+            double moveX = 0;
+            double moveY = 0;
+            for (int i = 0; i < moduleCount; i++) {
+                if (!used[i]) {
+                    continue;
+                }
+                double distance = (distances[i] - lastDistances[i]) / substeps;
+                double angle = lastAngles[i] + MathUtil.angleModulus(angles[i] - lastAngles[i]) * fraction;
+                // Module motion minus the rotation part, which is yawDelta x (moduleX, moduleY)
+                moveX += distance * Math.cos(angle) + yawDelta * moduleY[i];
+                moveY += distance * Math.sin(angle) - yawDelta * moduleX[i];
+            }
+            moveX /= usedCount;
+            moveY /= usedCount;
+
+            // Arc of constant curvature in the robot frame, see Pose2d.exp()
+            double sinTerm;
+            double cosTerm;
+            if (Math.abs(yawDelta) < 1e-9) {
+                sinTerm = 1.0 - yawDelta * yawDelta / 6.0;
+                cosTerm = 0.5 * yawDelta;
+            } else {
+                sinTerm = Math.sin(yawDelta) / yawDelta;
+                cosTerm = (1 - Math.cos(yawDelta)) / yawDelta;
+            }
+            double robotX = moveX * sinTerm - moveY * cosTerm;
+            double robotY = moveX * cosTerm + moveY * sinTerm;
+
+            double cos = Math.cos(substepHeading);
+            double sin = Math.sin(substepHeading);
+            x += robotX * cos - robotY * sin;
+            y += robotX * sin + robotY * cos;
+            substepHeading += yawDelta;
+        }
+
+        heading = MathUtil.angleModulus(yaw + headingOffset);
+        lastYaw = yaw;
+        System.arraycopy(distances, 0, lastDistances, 0, moduleCount);
+        System.arraycopy(angles, 0, lastAngles, 0, moduleCount);
+
+        if (++windowUpdates >= checkUpdates) {
+            checkModules();
+        }
+    }
+
+    /*
+        Add the update's module motion to the check window. yawDelta is the rotation
+        over the whole update.
+    */
+    private void addToWindow(double yawDelta, double[] distances, double[] angles) {
+        for (int i = 0; i < moduleCount; i++) {
+            double distance = distances[i] - lastDistances[i];
+            double angle = lastAngles[i] + MathUtil.angleModulus(angles[i] - lastAngles[i]) * 0.5;
+            moveXs[i] += distance * Math.cos(angle) + yawDelta * moduleY[i];
+            moveYs[i] += distance * Math.sin(angle) - yawDelta * moduleX[i];
+            travels[i] += Math.abs(distance)
+                + Math.abs(yawDelta) * Math.hypot(moduleX[i], moduleY[i]);
+        }
+    }
+
+    /*
+        Flag the slipping modules over the window just ended and decide which modules
+        the next window uses, see the class comment.
+    */
+    private void checkModules() {
+        double sumX = 0;
+        double sumY = 0;
+        double sumTravel = 0;
+        for (int i = 0; i < moduleCount; i++) {
+            slipping[i] = false;
+            sumX += moveXs[i];
+            sumY += moveYs[i];
+            sumTravel += travels[i];
+        }
+        int checkedCount = moduleCount;
+        consistent = true;
+
+        while (checkedCount >= 2) {
+            // Module furthest outside its tolerance of the mean of the other used modules
+            int worst = -1;
+            double worstExcess = 1;
+            for (int i = 0; i < moduleCount; i++) {
+                if (slipping[i]) {
+                    continue;
+                }
+                double othersX = (sumX - moveXs[i]) / (checkedCount - 1);
+                double othersY = (sumY - moveYs[i]) / (checkedCount - 1);
+                double othersTravel = (sumTravel - travels[i]) / (checkedCount - 1);
+                double tolerance = slipToleranceMeters + slipToleranceRatio * Math.hypot(othersX, othersY)
+                    + skewRatio * Math.max(travels[i], othersTravel);
+                double excess = Math.hypot(moveXs[i] - othersX, moveYs[i] - othersY) / tolerance;
+                if (excess > worstExcess) {
+                    worst = i;
+                    worstExcess = excess;
+                }
+            }
+            if (worst < 0) {
+                break;
+            }
+            if (checkedCount == 2) {
+                // The modules left disagree with each other, flag none of them
+                Arrays.fill(slipping, false);
+                consistent = false;
+                break;
+            }
+            slipping[worst] = true;
+            checkedCount--;
+            sumX -= moveXs[worst];
+            sumY -= moveYs[worst];
+            sumTravel -= travels[worst];
+        }
+
+        usedCount = 0;
+        for (int i = 0; i < moduleCount; i++) {
+            used[i] = !(dropSlippingModules && slipping[i]);
+            if (used[i]) {
+                usedCount++;
+            }
+        }
+        Arrays.fill(moveXs, 0);
+        Arrays.fill(moveYs, 0);
+        Arrays.fill(travels, 0);
+        windowUpdates = 0;
+    }
+
+    /*
+        Whether module i was used by the last update().
+    */
+    public boolean isModuleUsed(int i) {
+        return used[i];
+    }
+
+    /*
+        Whether module i disagreed with the others over the last check window.
+    */
+    public boolean isModuleSlipping(int i) {
+        return slipping[i];
+    }
+
+    /*
+        False if the modules in the last check window disagreed and no subset of
+        them agreed either, so none could be flagged.
+    */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    /*
+        Heading in radians, between -pi and pi.
+    */
+    public double getHeading() {
+        return heading;
+    }
+}
@@ -0,0 +1,200 @@
+package frc.robot.Utility;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.wpi.first.wpilibj.RobotController;
+
+/*
+    Asynchronous event log for debug messages that used to go to System.out.
+
+    Callers on the robot loop only copy an event id, a timestamp and two doubles into a
+    preallocated lock-free ring buffer. A background thread drains the buffer and writes
+    compact binary records to a file, so no strings are built and no console or file I/O
+    happens on the main thread. If the buffer is full the record is dropped and counted
+    rather than blocking the loop.
+
+    Nothing is written until start() is called from robotInit, so tests, benchmarks
+    and the desktop tools that load code using the logger create no file or thread.
+    Records logged before then wait in the buffer, and once it is full are dropped.
+
+    Each boot writes a new events-<ms>.bin next to the DataLogger files. A file stops
+    growing at MAX_FILE_SIZE, after which records are dropped and counted, and only the
+    MAX_LOG_FILES newest files are kept, within the total log budget DataLogger keeps
+    for the roboRIO 1. EventLogDecoder converts a file to CSV.
+
+    File format (big endian, java.io.DataOutputStream), read back by EventLogDecoder:
+        definition record: byte 0, short eventId, UTF eventName
+        data record:       byte 1, short eventId, long fpgaTimeMicros, double a, double b
+
+    Usage:
+        private static final int SHOULDER_EVENT = AsyncLogger.registerEvent("Arm shoulder target,current");
+        ...
+        AsyncLogger.log(SHOULDER_EVENT, target, current);
+*/
+public class AsyncLogger {
+
+    private static final int CAPACITY = 4096; // Must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_EVENTS = 256;
+    private static final long DRAIN_PERIOD_MS = 20;
+    private static final int MAX_FILE_SIZE = 4 * 1024 * 1024; // About 150000 records
+    private static final int MAX_LOG_FILES = 3; // Including the new one, 12MB in all
+
+    static final byte DEFINITION_RECORD = 0;
+    static final byte DATA_RECORD = 1;
+
+    // Ring buffer slots, written by producers and read by the writer thread
+    private static final short[] eventIds = new short[CAPACITY];
+    private static final long[] timestamps = new long[CAPACITY];
+    private static final double[] valuesA = new double[CAPACITY];
+    private static final double[] valuesB = new double[CAPACITY];
+    private static final AtomicLongArray sequence = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong();
+    private static long head = 0;
+
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static final String[] eventNames = new String[MAX_EVENTS];
+    private static volatile int eventCount = 0;
+    private static int eventsWritten = 0;
+    private static Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    private AsyncLogger() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    /*
+        Create the log file and start the writer thread. Called once from robotInit.
+    */
+    public static synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(AsyncLogger::run, "AsyncLogger");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /*
+        Register an event name and return the id used with log(). Call this once,
+        normally from a static field, not from the loop.
+    */
+    public static synchronized int registerEvent(String name) {
+        for (int i = 0; i < eventCount; i++) {
+            if (eventNames[i].equals(name)) {
+                return i;
+            }
+        }
+        if (eventCount >= MAX_EVENTS) {
+            throw new IllegalStateException("Too many AsyncLogger events, raise MAX_EVENTS");
+        }
+        eventNames[eventCount] = name;
+        return eventCount++;
+    }
+
+    public static boolean log(int eventId, double a) {
+        return log(eventId, a, 0.0);
+    }
+
+    /*
+        Queue a record without blocking. Safe to call from any thread. Returns false if
+        the buffer was full and the record was dropped.
+    */
+    public static boolean log(int eventId, double a, double b) {
+        long time = RobotController.getFPGATime();
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & MASK);
+            long difference = sequence.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    eventIds[index] = (short) eventId;
+                    timestamps[index] = time;
+                    valuesA[index] = a;
+                    valuesB[index] = b;
+                    sequence.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private static void run() {
+        File directory = DataLogger.getLogDirectory();
+        if (!DataLogger.deleteOldLogs(directory, "events-", MAX_LOG_FILES, MAX_FILE_SIZE)) {
+            System.err.println("AsyncLogger disabled, not enough space in " + directory);
+            return;
+        }
+        File logFile = new File(directory, "events-" + System.currentTimeMillis() + ".bin");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(logFile), 64 * 1024))) {
+            while (!Thread.currentThread().isInterrupted()) {
+                writeDefinitions(out);
+                drain(out);
+                out.flush();
+                Thread.sleep(DRAIN_PERIOD_MS);
+            }
+        } catch (IOException e) {
+            System.err.println("AsyncLogger stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeDefinitions(DataOutputStream out) throws IOException {
+        int count = eventCount;
+        while (eventsWritten < count) {
+            out.writeByte(DEFINITION_RECORD);
+            out.writeShort(eventsWritten);
+            out.writeUTF(eventNames[eventsWritten]);
+            eventsWritten++;
+        }
+    }
+
+    private static void drain(DataOutputStream out) throws IOException {
+        while (true) {
+            int index = (int) (head & MASK);
+            if (sequence.get(index) != head + 1) {
+                return;
+            }
+            if (eventIds[index] >= eventsWritten) {
+                // Event was registered after the last definition pass
+                writeDefinitions(out);
+            }
+            if (out.size() < MAX_FILE_SIZE) {
+                out.writeByte(DATA_RECORD);
+                out.writeShort(eventIds[index]);
+                out.writeLong(timestamps[index]);
+                out.writeDouble(valuesA[index]);
+                out.writeDouble(valuesB[index]);
+            } else {
+                dropped.incrementAndGet();
+            }
+            sequence.lazySet(index, head + CAPACITY);
+            head++;
+        }
+    }
+}
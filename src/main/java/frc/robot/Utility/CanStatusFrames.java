@@ -0,0 +1,197 @@
+package frc.robot.Utility;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+
+/*
+    Every CAN device on the robot and the status frame periods it is run at, in one
+    place, with an estimate of the bus load they add up to.
+
+    Each device's periods come from what the code actually reads from it. A frame
+    nothing reads is slowed right down; a frame the code reads is sent as often as it
+    is read. The IO classes call configure() on each motor controller every boot, as
+    part of the configuration they submit to DeviceConfigurator. checkBudget() runs at
+    boot from Robot.robotInit and at build time from the checkCanBudget Gradle task,
+    so it fails both if the declared periods would load the bus past MAX_UTILIZATION.
+
+    The estimate counts every periodic status frame, the setpoint frames sent from the
+    20ms loop, the Talon control frame and a fixed allowance for the roboRIO heartbeat
+    and the power distribution panel, all as worst case 8 byte extended frames.
+*/
+public final class CanStatusFrames {
+
+    public static final double BUS_BITS_PER_SECOND = 1_000_000;
+    public static final double MAX_UTILIZATION = 0.70;
+
+    // 29 bit id frame with 8 data bytes is 131 bits, plus room for stuff bits
+    private static final double BITS_PER_FRAME = 150;
+    private static final double LOOP_FRAMES_PER_SECOND = 50;
+    // roboRIO heartbeat every 20ms and the CTRE PDP status frames
+    private static final double OTHER_FRAMES_PER_SECOND = 50 + 3 * 40;
+
+    // Status frames a Spark Max sends, in the order of the periods in Device
+    private static final PeriodicFrame[] SPARK_MAX_FRAMES = {
+        PeriodicFrame.kStatus0, // Applied output, faults
+        PeriodicFrame.kStatus1, // Velocity, temperature, voltage, current
+        PeriodicFrame.kStatus2, // Position
+        PeriodicFrame.kStatus3, // Analog sensor
+        PeriodicFrame.kStatus4, // Alternate encoder
+        PeriodicFrame.kStatus5, // Duty cycle encoder position
+        PeriodicFrame.kStatus6, // Duty cycle encoder velocity
+    };
+
+    // Status frames a TalonSRX sends, in the order of the periods in Device
+    private static final StatusFrameEnhanced[] TALON_SRX_FRAMES = {
+        StatusFrameEnhanced.Status_1_General,
+        StatusFrameEnhanced.Status_2_Feedback0,
+        StatusFrameEnhanced.Status_3_Quadrature,
+        StatusFrameEnhanced.Status_4_AinTempVbat,
+        StatusFrameEnhanced.Status_8_PulseWidth,
+        StatusFrameEnhanced.Status_10_MotionMagic,
+        StatusFrameEnhanced.Status_12_Feedback1,
+        StatusFrameEnhanced.Status_13_Base_PIDF0,
+        StatusFrameEnhanced.Status_14_Turn_PIDF1,
+    };
+    private static final int TALON_CONTROL_PERIOD_MS = 20;
+    private static final int TALON_TIMEOUT_MS = 50;
+
+    enum Type {
+        SPARK_MAX,
+        TALON_SRX
+    }
+
+    /*
+        Status frame periods in milliseconds for each kind of device, in the order of
+        SPARK_MAX_FRAMES or TALON_SRX_FRAMES. TalonSRX periods top out at 255ms.
+    */
+    public enum Device {
+        // Velocity every loop for getState(), position at the 5ms odometry rate
+        SWERVE_DRIVE("Swerve drive Spark Max", Type.SPARK_MAX, 4, 20, 20, 5, 500, 500, 500, 500),
+        // Selected sensor position at the odometry rate, nothing else is read
+        SWERVE_STEER("Swerve steer TalonSRX", Type.TALON_SRX, 4, 20, 5, 255, 255, 255, 255, 255, 255, 255),
+        // The arm sensors are wired to the roboRIO, nothing is read from the Spark Maxes
+        ARM_SHOULDER("Arm shoulder Spark Max", Type.SPARK_MAX, 1, 20, 250, 250, 500, 500, 500, 500),
+        ARM_EXTENSION("Arm extension Spark Max", Type.SPARK_MAX, 1, 20, 250, 250, 500, 500, 500, 500),
+        // Output current (status 1) every loop, the position is never read
+        INTAKE("Intake Spark Max", Type.SPARK_MAX, 1, 20, 20, 500, 500, 500, 500, 500);
+
+        final String description;
+        final Type type;
+        final int count;
+        final int[] periodsMs;
+
+        Device(String description, Type type, int count, int... periodsMs) {
+            this.description = description;
+            this.type = type;
+            this.count = count;
+            this.periodsMs = periodsMs;
+        }
+
+        /*
+            Frames per second from one device of this kind.
+        */
+        double framesPerSecond() {
+            double frames = LOOP_FRAMES_PER_SECOND; // Setpoint from the main loop
+            if (type == Type.TALON_SRX) {
+                frames += 1000.0 / TALON_CONTROL_PERIOD_MS;
+            }
+            for (int period : periodsMs) {
+                frames += 1000.0 / period;
+            }
+            return frames;
+        }
+    }
+
+    private CanStatusFrames() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    /*
+        Apply the status frame periods for device. Call after restoreFactoryDefaults(),
+        which puts the defaults back, and before burnFlash().
+    */
+    public static void configure(CANSparkMax motor, Device device) {
+        checkType(device, Type.SPARK_MAX);
+        for (int i = 0; i < SPARK_MAX_FRAMES.length; i++) {
+            REVLibError error = motor.setPeriodicFramePeriod(SPARK_MAX_FRAMES[i], device.periodsMs[i]);
+            if (error != REVLibError.kOk) {
+                System.err.println(device.description + " " + motor.getDeviceId() + ": could not set "
+                    + SPARK_MAX_FRAMES[i] + " period, " + error);
+            }
+        }
+    }
+
+    public static void configure(TalonSRX motor, Device device) {
+        checkType(device, Type.TALON_SRX);
+        for (int i = 0; i < TALON_SRX_FRAMES.length; i++) {
+            ErrorCode error = motor.setStatusFramePeriod(TALON_SRX_FRAMES[i], device.periodsMs[i], TALON_TIMEOUT_MS);
+            if (error != ErrorCode.OK) {
+                System.err.println(device.description + " " + motor.getDeviceID() + ": could not set "
+                    + TALON_SRX_FRAMES[i] + " period, " + error);
+            }
+        }
+        motor.setControlFramePeriod(ControlFrame.Control_3_General, TALON_CONTROL_PERIOD_MS);
+    }
+
+    private static void checkType(Device device, Type type) {
+        if (device.type != type) {
+            throw new IllegalArgumentException(device + " is not a " + type);
+        }
+    }
+
+    /*
+        Estimated fraction of the bus the declared devices use.
+    */
+    public static double estimateUtilization() {
+        double frames = OTHER_FRAMES_PER_SECOND;
+        for (Device device : Device.values()) {
+            frames += device.count * device.framesPerSecond();
+        }
+        return frames * BITS_PER_FRAME / BUS_BITS_PER_SECOND;
+    }
+
+    /*
+        Print the estimate per device.
+    */
+    public static void printBudget() {
+        System.out.printf("%-26s %5s %10s %8s%n", "CAN device", "Count", "Frames/s", "Load");
+        for (Device device : Device.values()) {
+            double frames = device.count * device.framesPerSecond();
+            System.out.printf("%-26s %5d %10.0f %7.1f%%%n", device.description, device.count, frames,
+                frames * BITS_PER_FRAME / BUS_BITS_PER_SECOND * 100);
+        }
+        System.out.printf("%-26s %5s %10.0f %7.1f%%%n", "Heartbeat and PDP", "", OTHER_FRAMES_PER_SECOND,
+            OTHER_FRAMES_PER_SECOND * BITS_PER_FRAME / BUS_BITS_PER_SECOND * 100);
+        System.out.printf("Estimated CAN utilization %.1f%% of a %.0f%% budget%n",
+            estimateUtilization() * 100, MAX_UTILIZATION * 100);
+    }
+
+    /*
+        Throw if the declared status frame periods are over the bus budget.
+    */
+    public static void checkBudget() {
+        double utilization = estimateUtilization();
+        if (utilization > MAX_UTILIZATION) {
+            printBudget();
+            throw new IllegalStateException(String.format(
+                "Estimated CAN utilization %.1f%% is over the %.0f%% budget, slow down status frames in CanStatusFrames",
+                utilization * 100, MAX_UTILIZATION * 100));
+        }
+    }
+
+    /*
+        Build time check, run by the checkCanBudget Gradle task.
+    */
+    public static void main(String... args) {
+        printBudget();
+        if (estimateUtilization() > MAX_UTILIZATION) {
+            System.err.println("CAN utilization is over budget");
+            System.exit(1);
+        }
+    }
+}
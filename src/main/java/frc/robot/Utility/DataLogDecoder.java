@@ -0,0 +1,66 @@
+package frc.robot.Utility;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/*
+    Desktop tool that converts a DataLogger file to CSV, one row per robot loop with the
+    FPGA time in seconds in the first column.
+
+    ./gradlew decodeLog -Plog=data-1681234567890.bin [-Pcsv=match.csv]
+*/
+public final class DataLogDecoder {
+
+    private DataLogDecoder() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DataLogDecoder <log file> [csv file]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = args.length > 1 ? new File(args[1])
+            : new File(input.getPath().replaceFirst("\\.bin$", "") + ".csv");
+
+        DataLogReader reader = new DataLogReader(input);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(output)))) {
+            out.print("Time");
+            for (int signal = 0; signal < reader.getSignalCount(); signal++) {
+                out.print(',');
+                out.print(quote(reader.getName(signal)));
+            }
+            out.println();
+
+            for (int frame = 0; frame < reader.getFrameCount(); frame++) {
+                out.print(reader.getTimestampMicros(frame) / 1e6);
+                for (int signal = 0; signal < reader.getSignalCount(); signal++) {
+                    out.print(',');
+                    switch (reader.getType(signal)) {
+                        case DataLogger.TYPE_DOUBLE:
+                            out.print(reader.getDouble(frame, signal));
+                            break;
+                        case DataLogger.TYPE_BOOLEAN:
+                            out.print(reader.getBoolean(frame, signal));
+                            break;
+                        default:
+                            out.print(reader.getRaw(frame, signal));
+                            break;
+                    }
+                }
+                out.println();
+            }
+        }
+        System.out.println("Wrote " + reader.getFrameCount() + " frames of " + reader.getSignalCount()
+            + " signals to " + output);
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,102 @@
+package frc.robot.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Reads a log file written by DataLogger. Frames are numbered oldest first, after
+    taking care of the ring wrapping around. Plain Java only, so it runs on a desktop
+    without the wpilib native libraries.
+*/
+public class DataLogReader {
+
+    private final ByteBuffer buffer;
+    private final String[] names;
+    private final byte[] types;
+    private final int frameSize;
+    private final int frameCapacity;
+    private final int frameCount;
+    private final long firstFrame;
+
+    public DataLogReader(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != DataLogger.MAGIC || buffer.getInt(4) != DataLogger.VERSION) {
+            throw new IOException(file + " is not a DataLogger file, or is from a different version");
+        }
+        frameSize = buffer.getInt(8);
+        frameCapacity = buffer.getInt(12);
+        long framesWritten = buffer.getLong(DataLogger.FRAMES_WRITTEN_OFFSET);
+        frameCount = (int) Math.min(framesWritten, frameCapacity);
+        firstFrame = framesWritten - frameCount;
+
+        int signalCount = buffer.getInt(DataLogger.SIGNAL_COUNT_OFFSET);
+        names = new String[signalCount];
+        types = new byte[signalCount];
+        ByteBuffer header = buffer.duplicate();
+        header.position(DataLogger.SIGNAL_TABLE_OFFSET);
+        for (int i = 0; i < signalCount; i++) {
+            types[i] = header.get();
+            byte[] name = new byte[header.getShort() & 0xFFFF];
+            header.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+    }
+
+    public int getSignalCount() {
+        return names.length;
+    }
+
+    public String getName(int signal) {
+        return names[signal];
+    }
+
+    public byte getType(int signal) {
+        return types[signal];
+    }
+
+    /*
+        Index of the named signal, or -1 if it was not logged.
+    */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    private int offset(int frame) {
+        return DataLogger.HEADER_SIZE + (int) ((firstFrame + frame) % frameCapacity) * frameSize;
+    }
+
+    public long getTimestampMicros(int frame) {
+        return buffer.getLong(offset(frame));
+    }
+
+    public long getRaw(int frame, int signal) {
+        return buffer.getLong(offset(frame) + 8 + 8 * signal);
+    }
+
+    /*
+        Value of any signal as a double, booleans read as 0 or 1.
+    */
+    public double getDouble(int frame, int signal) {
+        long raw = getRaw(frame, signal);
+        return types[signal] == DataLogger.TYPE_DOUBLE ? Double.longBitsToDouble(raw) : raw;
+    }
+
+    public boolean getBoolean(int frame, int signal) {
+        return getRaw(frame, signal) != 0;
+    }
+}
@@ -0,0 +1,271 @@
+package frc.robot.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+
+/*
+    Persistent per loop data log for post match analysis and replay.
+
+    Signals are registered once, normally from static fields, and the code that owns a
+    value writes it each loop with set(). Robot.robotPeriodic calls endFrame() at the end
+    of every loop, which copies the loop's values as one fixed size frame into a
+    preallocated memory mapped file. Nothing is allocated and no system call is made on
+    the loop; the operating system writes the pages out and a background thread forces
+    them to disk once a second. When the file is full it wraps around and overwrites
+    the oldest frames.
+
+    Each boot writes a new file. Only the MAX_LOG_FILES newest are kept, the older ones
+    are deleted before the new file is created so the roboRIO never runs out of space.
+    The sizes assume a roboRIO 1, whose 512MB of flash has only a couple of hundred MB
+    free once the image, the JRE and the robot code are on it. The data and AsyncLogger
+    event logs together are held to MAX_TOTAL_LOG_BYTES, and a new log also leaves at
+    least MIN_FREE_BYTES free, deleting older logs of either kind to make room.
+
+    The frame layout is fixed when start() is called from robotInit, so every signal
+    must be registered before then. Signals registered later are not logged.
+
+    File layout (big endian), read back by DataLogReader and DataLogDecoder:
+        header, HEADER_SIZE bytes:
+            int magic, int version, int frameSize, int frameCapacity,
+            long framesWritten, int signalCount,
+            then per signal: byte type, short nameLength, name bytes (UTF-8)
+        frames, frameCapacity of them, each:
+            long fpgaTimeMicros, then 8 bytes per signal (double bits, long or 0/1)
+
+    Usage:
+        private static final int ARM_POSITION = DataLogger.addDouble("Arm/Shoulder Position");
+        ...
+        DataLogger.set(ARM_POSITION, absArmPositionSample);
+*/
+public class DataLogger {
+
+    public static final byte TYPE_DOUBLE = 0;
+    public static final byte TYPE_INTEGER = 1;
+    public static final byte TYPE_BOOLEAN = 2;
+
+    static final int MAGIC = 0x444C4F47; // "DLOG"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16 * 1024;
+    static final int FRAMES_WRITTEN_OFFSET = 16;
+    static final int SIGNAL_COUNT_OFFSET = 24;
+    static final int SIGNAL_TABLE_OFFSET = 28;
+
+    private static final long FILE_SIZE = 16L * 1024 * 1024; // About 10 minutes of loops
+    private static final int MAX_LOG_FILES = 3; // Including the new one, 48MB in all
+    // Data and event logs together, 48MB of data and 12MB of event logs with headroom
+    static final long MAX_TOTAL_LOG_BYTES = 64L * 1024 * 1024;
+    // Left free for the robot code, deploys and the system's own logs
+    static final long MIN_FREE_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_SIGNALS = 256;
+    private static final long FORCE_PERIOD_MS = 1000;
+
+    private static final String[] names = new String[MAX_SIGNALS];
+    private static final byte[] types = new byte[MAX_SIGNALS];
+    private static int signalCount = 0;
+
+    // Values for the current loop, copied into the file by endFrame()
+    private static final long[] values = new long[MAX_SIGNALS];
+
+    private static MappedByteBuffer file;
+    private static int loggedSignals = 0;
+    private static int frameSize;
+    private static int frameCapacity;
+    private static long framesWritten = 0;
+
+    private DataLogger() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    public static int addDouble(String name) {
+        return addSignal(name, TYPE_DOUBLE);
+    }
+
+    public static int addInteger(String name) {
+        return addSignal(name, TYPE_INTEGER);
+    }
+
+    public static int addBoolean(String name) {
+        return addSignal(name, TYPE_BOOLEAN);
+    }
+
+    /*
+        Register a signal and return the id used with set(). Registering the same name
+        twice returns the same id. Call this once, normally from a static field.
+    */
+    public static synchronized int addSignal(String name, byte type) {
+        for (int i = 0; i < signalCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (signalCount >= MAX_SIGNALS) {
+            throw new IllegalStateException("Too many DataLogger signals, raise MAX_SIGNALS");
+        }
+        if (file != null) {
+            System.err.println("DataLogger signal " + name + " was registered after start() and will not be logged");
+        }
+        names[signalCount] = name;
+        types[signalCount] = type;
+        return signalCount++;
+    }
+
+    public static void set(int id, double value) {
+        values[id] = Double.doubleToRawLongBits(value);
+    }
+
+    public static void setInteger(int id, long value) {
+        values[id] = value;
+    }
+
+    public static void setBoolean(int id, boolean value) {
+        values[id] = value ? 1 : 0;
+    }
+
+    /*
+        Create the log file and fix the frame layout. Called once from robotInit after
+        all the subsystems and commands have been created.
+    */
+    public static synchronized void start() {
+        if (file != null) {
+            return;
+        }
+        File directory = getLogDirectory();
+        if (!deleteOldLogs(directory, "data-", MAX_LOG_FILES, FILE_SIZE)) {
+            System.err.println("DataLogger disabled, not enough space in " + directory);
+            return;
+        }
+        File logFile = new File(directory, "data-" + System.currentTimeMillis() + ".bin");
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(logFile, "rw")) {
+            randomAccessFile.setLength(FILE_SIZE);
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+            loggedSignals = signalCount;
+            frameSize = 8 + 8 * loggedSignals;
+            frameCapacity = (int) ((FILE_SIZE - HEADER_SIZE) / frameSize);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, frameSize);
+            buffer.putInt(12, frameCapacity);
+            buffer.putLong(FRAMES_WRITTEN_OFFSET, 0);
+            buffer.putInt(SIGNAL_COUNT_OFFSET, loggedSignals);
+            buffer.position(SIGNAL_TABLE_OFFSET);
+            for (int i = 0; i < loggedSignals; i++) {
+                byte[] name = names[i].getBytes(StandardCharsets.UTF_8);
+                if (buffer.position() + 3 + name.length > HEADER_SIZE) {
+                    throw new IllegalStateException("DataLogger signal names do not fit in the header");
+                }
+                buffer.put(types[i]);
+                buffer.putShort((short) name.length);
+                buffer.put(name);
+            }
+            file = buffer;
+        } catch (IOException e) {
+            System.err.println("DataLogger disabled, could not create " + logFile + ": " + e.getMessage());
+            return;
+        }
+
+        Thread flusher = new Thread(DataLogger::forceLoop, "DataLogger");
+        flusher.setDaemon(true);
+        flusher.setPriority(Thread.MIN_PRIORITY);
+        flusher.start();
+    }
+
+    /*
+        Directory the logs are written to, created if it is missing.
+    */
+    static File getLogDirectory() {
+        File directory = RobotBase.isReal() ? new File("/home/lvuser/logs") : new File("logs");
+        directory.mkdirs();
+        return directory;
+    }
+
+    /*
+        Delete the oldest logs in directory whose names start with prefix, so that with
+        the one about to be created there are at most keep of them. Then delete the
+        oldest logs of either kind until a new file of newFileSize fits within
+        MAX_TOTAL_LOG_BYTES and leaves MIN_FREE_BYTES free. Ordered by when the files
+        were last written, which is right even for files named before the roboRIO clock
+        was set by the driver station. Returns false if there is still no room.
+    */
+    static synchronized boolean deleteOldLogs(File directory, String prefix, int keep, long newFileSize) {
+        File[] logs = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".bin"));
+        if (logs != null && logs.length >= keep) {
+            Arrays.sort(logs, Comparator.comparingLong(File::lastModified));
+            for (int i = 0; i <= logs.length - keep; i++) {
+                delete(logs[i]);
+            }
+        }
+
+        File[] allLogs = directory.listFiles((dir, name) ->
+            (name.startsWith("data-") || name.startsWith("events-")) && name.endsWith(".bin"));
+        if (allLogs == null) {
+            return false;
+        }
+        Arrays.sort(allLogs, Comparator.comparingLong(File::lastModified));
+        long total = newFileSize;
+        for (File log : allLogs) {
+            total += log.length();
+        }
+        for (File log : allLogs) {
+            if (total <= MAX_TOTAL_LOG_BYTES && directory.getUsableSpace() - newFileSize >= MIN_FREE_BYTES) {
+                break;
+            }
+            long length = log.length();
+            if (delete(log)) {
+                total -= length;
+            }
+        }
+        return total <= MAX_TOTAL_LOG_BYTES && directory.getUsableSpace() - newFileSize >= MIN_FREE_BYTES;
+    }
+
+    private static boolean delete(File log) {
+        if (!log.delete()) {
+            System.err.println("Could not delete old log " + log);
+            return false;
+        }
+        return true;
+    }
+
+    /*
+        Append the values set this loop as one frame. Called once at the end of each
+        robot loop.
+    */
+    public static void endFrame() {
+        MappedByteBuffer buffer = file;
+        if (buffer == null) {
+            return;
+        }
+        int offset = HEADER_SIZE + (int) (framesWritten % frameCapacity) * frameSize;
+        buffer.putLong(offset, RobotController.getFPGATime());
+        offset += 8;
+        for (int i = 0; i < loggedSignals; i++) {
+            buffer.putLong(offset, values[i]);
+            offset += 8;
+        }
+        framesWritten++;
+        buffer.putLong(FRAMES_WRITTEN_OFFSET, framesWritten);
+    }
+
+    private static void forceLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(FORCE_PERIOD_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            file.force();
+        }
+    }
+}
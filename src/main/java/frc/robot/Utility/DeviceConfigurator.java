@@ -0,0 +1,172 @@
+package frc.robot.Utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix.ErrorCode;
+import com.revrobotics.REVLibError;
+
+/*
+    Configures the motor controllers at boot in parallel.
+
+    Every configuration call waits for the device to answer over CAN, so configuring
+    the devices one after another on the main thread made boot take the sum of all of
+    them. The IO classes now create their devices and submit() the configuration, which
+    runs on a small thread pool while the rest of the robot is built. Robot.robotInit
+    calls awaitAll() before the first loop, so normally nothing is commanded until
+    every device is configured. If a configuration failed, or is still running when
+    awaitAll() times out, that is reported to the Driver Station and the robot runs
+    anyway: the device may then be commanded with some of its settings missing, and a
+    late configuration can still change its settings while it is running.
+
+    Each configuration call goes through rev() or ctre(), which retry it a few times
+    before recording it as failed. The Spark Maxes are factory reset and set up every
+    boot, so no setting left over from before survives, but their configuration is read
+    back first and burnFlash skipped when it already matches, which saves the slowest
+    call and the flash wear on every boot after the first. The Talons get every setting
+    in one configAllSettings call.
+
+    Usage:
+        DeviceConfigurator.submit("Intake", () -> {
+            DeviceConfigurator.rev("Intake", "idle mode", () -> motor.setIdleMode(IdleMode.kBrake));
+            ...
+        });
+*/
+public final class DeviceConfigurator {
+
+    public static final int CAN_TIMEOUT_MS = 50; // Phoenix config calls
+    private static final int ATTEMPTS = 3;
+    private static final int THREADS = 4;
+
+    private static ExecutorService executor;
+    private static final List<String> names = new ArrayList<>();
+    private static final List<Future<?>> tasks = new ArrayList<>();
+    private static final List<String> failures = new ArrayList<>();
+    private static int flashesSkipped = 0;
+    private static long firstSubmitNanos = 0;
+
+    private DeviceConfigurator() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    /*
+        Run configuration for device on the configuration threads.
+    */
+    public static synchronized void submit(String device, Runnable configuration) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "DeviceConfigurator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            firstSubmitNanos = System.nanoTime();
+        }
+        names.add(device);
+        tasks.add(executor.submit(() -> {
+            try {
+                configuration.run();
+            } catch (RuntimeException e) {
+                fail(device + ": configuration threw " + e);
+            }
+        }));
+    }
+
+    /*
+        Run a REVLib configuration call until it succeeds, up to ATTEMPTS times.
+    */
+    public static boolean rev(String device, String setting, Supplier<REVLibError> call) {
+        REVLibError error = REVLibError.kOk;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            error = call.get();
+            if (error == REVLibError.kOk) {
+                return true;
+            }
+        }
+        fail(device + ": " + setting + " failed, " + error);
+        return false;
+    }
+
+    /*
+        Run a Phoenix configuration call until it succeeds, up to ATTEMPTS times.
+    */
+    public static boolean ctre(String device, String setting, Supplier<ErrorCode> call) {
+        ErrorCode error = ErrorCode.OK;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            error = call.get();
+            if (error == ErrorCode.OK) {
+                return true;
+            }
+        }
+        fail(device + ": " + setting + " failed, " + error);
+        return false;
+    }
+
+    /*
+        Whether a configuration value read back from a device matches the one wanted.
+        The devices store most values as floats.
+    */
+    public static boolean matches(double stored, double wanted) {
+        return Math.abs(stored - wanted) <= 1e-6 * Math.max(1.0, Math.abs(wanted));
+    }
+
+    /*
+        Note that a device already had the right configuration stored and was not
+        flashed.
+    */
+    public static synchronized void flashSkipped() {
+        flashesSkipped++;
+    }
+
+    private static synchronized void fail(String message) {
+        failures.add(message);
+    }
+
+    /*
+        Wait up to timeoutSeconds for every submitted configuration to finish and print
+        a summary. Returns false if anything failed or did not finish in time.
+    */
+    public static boolean awaitAll(double timeoutSeconds) {
+        List<String> deviceNames;
+        List<Future<?>> pending;
+        synchronized (DeviceConfigurator.class) {
+            deviceNames = new ArrayList<>(names);
+            pending = new ArrayList<>(tasks);
+        }
+        if (pending.isEmpty()) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + (long) (timeoutSeconds * 1e9);
+        List<String> timedOut = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                pending.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timedOut.add(deviceNames.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                fail(deviceNames.get(i) + ": " + e);
+            }
+        }
+
+        synchronized (DeviceConfigurator.class) {
+            System.out.printf("Configured %d devices in %.0fms, %d already had their configuration stored%n",
+                pending.size() - timedOut.size(), (System.nanoTime() - firstSubmitNanos) / 1e6, flashesSkipped);
+            for (String device : timedOut) {
+                System.err.println(device + ": configuration did not finish in " + timeoutSeconds + "s");
+            }
+            for (String failure : failures) {
+                System.err.println(failure);
+            }
+            return timedOut.isEmpty() && failures.isEmpty();
+        }
+    }
+}
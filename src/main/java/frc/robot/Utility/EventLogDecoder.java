@@ -0,0 +1,79 @@
+package frc.robot.Utility;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+    Desktop tool that converts an AsyncLogger file to CSV, one row per record with the
+    FPGA time in seconds, the event name and its two values. A record cut short by the
+    robot losing power is skipped.
+
+    ./gradlew decodeEvents -Plog=events-1681234567890.bin [-Pcsv=events.csv]
+*/
+public final class EventLogDecoder {
+
+    private EventLogDecoder() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: EventLogDecoder <log file> [csv file]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = args.length > 1 ? new File(args[1])
+            : new File(input.getPath().replaceFirst("\\.bin$", "") + ".csv");
+
+        Map<Integer, String> names = new HashMap<>();
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(input)));
+                PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(output)))) {
+            out.println("Time,Event,A,B");
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                try {
+                    int eventId = in.readShort();
+                    if (type == AsyncLogger.DEFINITION_RECORD) {
+                        names.put(eventId, in.readUTF());
+                    } else if (type == AsyncLogger.DATA_RECORD) {
+                        long timeMicros = in.readLong();
+                        double a = in.readDouble();
+                        double b = in.readDouble();
+                        out.print(timeMicros / 1e6);
+                        out.print(',');
+                        out.print(quote(names.getOrDefault(eventId, "Event " + eventId)));
+                        out.print(',');
+                        out.print(a);
+                        out.print(',');
+                        out.println(b);
+                        records++;
+                    } else {
+                        throw new IOException(input + " is not an AsyncLogger file, unknown record type " + type);
+                    }
+                } catch (EOFException e) {
+                    System.err.println("Last record is incomplete and was skipped");
+                    break;
+                }
+            }
+        }
+        System.out.println("Wrote " + records + " records of " + names.size() + " events to " + output);
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,47 @@
+package frc.robot.Utility;
+
+/*
+    The frame of a DataLogger file that is currently being replayed. The replay IO
+    implementations read their sensor values from here, and LogReplay moves it forward
+    one recorded loop at a time.
+*/
+public class LogReplaySource {
+
+    private final DataLogReader reader;
+    private int frame = 0;
+
+    public LogReplaySource(DataLogReader reader) {
+        this.reader = reader;
+    }
+
+    public DataLogReader getReader() {
+        return reader;
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
+    public void setFrame(int frame) {
+        this.frame = frame;
+    }
+
+    /*
+        Index of a signal that the replay cannot run without.
+    */
+    public int require(String name) {
+        int signal = reader.indexOf(name);
+        if (signal < 0) {
+            throw new IllegalArgumentException("Log has no " + name + " signal, it was recorded by older code");
+        }
+        return signal;
+    }
+
+    public double get(int signal) {
+        return reader.getDouble(frame, signal);
+    }
+
+    public boolean getBoolean(int signal) {
+        return reader.getBoolean(frame, signal);
+    }
+}
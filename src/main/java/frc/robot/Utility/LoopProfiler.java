@@ -0,0 +1,135 @@
+package frc.robot.Utility;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/*
+    Lightweight loop timing for the robot code. Each timed section (a subsystem periodic,
+    a command execute, the whole scheduler run) is registered once and then bracketed with
+    start() and stop() on the main thread. Durations are kept in fixed size ring buffers
+    so nothing is allocated while the robot is running, and the p50/p99/max and overrun
+    counts are only published to NetworkTables every PUBLISH_PERIOD_LOOPS loops.
+
+    Usage:
+        private static final int PROFILE_SECTION = LoopProfiler.register("Drive.periodic", 2.0);
+        ...
+        LoopProfiler.start(PROFILE_SECTION);
+        // work
+        LoopProfiler.stop(PROFILE_SECTION);
+*/
+public class LoopProfiler {
+
+    private static final int MAX_SECTIONS = 32;
+    private static final int WINDOW_SIZE = 256; // About 5 seconds of samples at 50Hz
+    private static final int PUBLISH_PERIOD_LOOPS = 50; // Publish once a second
+
+    private static boolean enabled = true;
+
+    private static int sectionCount = 0;
+    private static final String[] names = new String[MAX_SECTIONS];
+    private static final long[] budgetNanos = new long[MAX_SECTIONS];
+    private static final long[] startNanos = new long[MAX_SECTIONS];
+    private static final long[][] samples = new long[MAX_SECTIONS][WINDOW_SIZE];
+    private static final int[] sampleCount = new int[MAX_SECTIONS];
+    private static final int[] writeIndex = new int[MAX_SECTIONS];
+    private static final long[] overruns = new long[MAX_SECTIONS];
+
+    private static final long[] sortBuffer = new long[WINDOW_SIZE];
+    private static int loopCounter = 0;
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("LoopProfiler");
+    private static final DoublePublisher[] p50Publishers = new DoublePublisher[MAX_SECTIONS];
+    private static final DoublePublisher[] p99Publishers = new DoublePublisher[MAX_SECTIONS];
+    private static final DoublePublisher[] maxPublishers = new DoublePublisher[MAX_SECTIONS];
+    private static final IntegerPublisher[] overrunPublishers = new IntegerPublisher[MAX_SECTIONS];
+
+    private LoopProfiler() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    /*
+        Register a timed section and return the id used with start() and stop(). Any
+        sample longer than budgetMs is counted as an overrun. Call this once, normally
+        from a static field, not from the loop.
+    */
+    public static synchronized int register(String name, double budgetMs) {
+        for (int i = 0; i < sectionCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (sectionCount >= MAX_SECTIONS) {
+            throw new IllegalStateException("Too many LoopProfiler sections, raise MAX_SECTIONS");
+        }
+
+        int id = sectionCount++;
+        names[id] = name;
+        budgetNanos[id] = (long) (budgetMs * 1e6);
+        p50Publishers[id] = table.getDoubleTopic(name + "/p50 ms").publish();
+        p99Publishers[id] = table.getDoubleTopic(name + "/p99 ms").publish();
+        maxPublishers[id] = table.getDoubleTopic(name + "/max ms").publish();
+        overrunPublishers[id] = table.getIntegerTopic(name + "/overruns").publish();
+        return id;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public static void start(int section) {
+        if (enabled) {
+            startNanos[section] = System.nanoTime();
+        }
+    }
+
+    public static void stop(int section) {
+        if (enabled) {
+            record(section, System.nanoTime() - startNanos[section]);
+        }
+    }
+
+    public static void record(int section, long durationNanos) {
+        long[] window = samples[section];
+        int index = writeIndex[section];
+        window[index] = durationNanos;
+        writeIndex[section] = (index + 1) % WINDOW_SIZE;
+        if (sampleCount[section] < WINDOW_SIZE) {
+            sampleCount[section]++;
+        }
+        if (durationNanos > budgetNanos[section]) {
+            overruns[section]++;
+        }
+    }
+
+    /*
+        Called once at the end of every robot loop. Publishes the statistics at the
+        throttled rate.
+    */
+    public static void endLoop() {
+        if (!enabled) {
+            return;
+        }
+        loopCounter++;
+        if (loopCounter < PUBLISH_PERIOD_LOOPS) {
+            return;
+        }
+        loopCounter = 0;
+
+        for (int i = 0; i < sectionCount; i++) {
+            int count = sampleCount[i];
+            if (count == 0) {
+                continue;
+            }
+            System.arraycopy(samples[i], 0, sortBuffer, 0, count);
+            Arrays.sort(sortBuffer, 0, count);
+            p50Publishers[i].set(sortBuffer[count / 2] / 1e6);
+            p99Publishers[i].set(sortBuffer[Math.min(count - 1, (int) (count * 0.99))] / 1e6);
+            maxPublishers[i].set(sortBuffer[count - 1] / 1e6);
+            overrunPublishers[i].set(overruns[i]);
+        }
+    }
+}
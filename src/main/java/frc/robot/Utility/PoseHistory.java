@@ -0,0 +1,160 @@
+package frc.robot.Utility;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/*
+    Fixed size history of robot poses keyed by FPGA timestamp, for asking where the
+    robot was at some time in the past.
+
+    Samples go into parallel primitive arrays used as a ring, so adding one allocates
+    nothing and the oldest sample is overwritten once the ring is full. Timestamps
+    must be added in increasing order, which lets sample() binary search the ring
+    and interpolate linearly between the two samples either side of the time asked
+    for. The heading is interpolated the short way round.
+
+    Not thread safe. Drive only touches its history while holding the odometry lock.
+
+    Usage:
+        PoseHistory history = new PoseHistory(400);
+        history.add(Timer.getFPGATimestamp(), pose.getX(), pose.getY(), pose.getRotation().getRadians());
+        ...
+        double[] pose = new double[3];
+        if (history.sample(visionTimestamp, pose)) {
+            // pose holds x, y and heading in radians
+        }
+*/
+public class PoseHistory {
+
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int HEADING = 2;
+
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+    private int start = 0; // Index of the oldest sample
+    private int size = 0;
+
+    public PoseHistory(int capacity) {
+        timestamps = new double[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        headings = new double[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    /*
+        Add the pose at timestampSeconds, heading in radians. A timestamp that is not
+        after the newest sample replaces it if equal and is ignored if older.
+    */
+    public void add(double timestampSeconds, double x, double y, double headingRadians) {
+        int index;
+        if (!isEmpty() && timestampSeconds <= newestTimestamp()) {
+            if (timestampSeconds < newestTimestamp()) {
+                return;
+            }
+            index = physical(size - 1);
+        } else if (size < timestamps.length) {
+            index = physical(size);
+            size++;
+        } else {
+            index = start;
+            start = (start + 1) % timestamps.length;
+        }
+        timestamps[index] = timestampSeconds;
+        xs[index] = x;
+        ys[index] = y;
+        headings[index] = headingRadians;
+    }
+
+    public void add(double timestampSeconds, Pose2d pose) {
+        add(timestampSeconds, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    }
+
+    /*
+        Timestamp of the oldest sample, or NaN if the history is empty.
+    */
+    public double oldestTimestamp() {
+        return isEmpty() ? Double.NaN : timestamps[start];
+    }
+
+    /*
+        Timestamp of the newest sample, or NaN if the history is empty.
+    */
+    public double newestTimestamp() {
+        return isEmpty() ? Double.NaN : timestamps[physical(size - 1)];
+    }
+
+    /*
+        Interpolated pose at timestampSeconds written into out as x, y and heading in
+        radians. Times after the newest sample get the newest pose. Returns false and
+        leaves out alone if the history is empty or the time is before the oldest
+        sample.
+    */
+    public boolean sample(double timestampSeconds, double[] out) {
+        if (isEmpty() || timestampSeconds < oldestTimestamp()) {
+            return false;
+        }
+        if (timestampSeconds >= newestTimestamp()) {
+            copy(physical(size - 1), out);
+            return true;
+        }
+
+        // Last sample at or before the time, the one after it is then after the time
+        int low = 0;
+        int high = size - 1;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[physical(middle)] <= timestampSeconds) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        int before = physical(low);
+        int after = physical(high);
+        double t = (timestampSeconds - timestamps[before]) / (timestamps[after] - timestamps[before]);
+        out[X] = xs[before] + (xs[after] - xs[before]) * t;
+        out[Y] = ys[before] + (ys[after] - ys[before]) * t;
+        out[HEADING] = MathUtil.angleModulus(headings[before]
+            + MathUtil.angleModulus(headings[after] - headings[before]) * t);
+        return true;
+    }
+
+    /*
+        Interpolated pose at timestampSeconds, or null if sample() would return false.
+        Allocates the pose, use sample() in code that runs every loop.
+    */
+    public Pose2d getPose(double timestampSeconds) {
+        double[] out = new double[3];
+        if (!sample(timestampSeconds, out)) {
+            return null;
+        }
+        return new Pose2d(out[X], out[Y], new Rotation2d(out[HEADING]));
+    }
+
+    private int physical(int logical) {
+        return (start + logical) % timestamps.length;
+    }
+
+    private void copy(int index, double[] out) {
+        out[X] = xs[index];
+        out[Y] = ys[index];
+        out[HEADING] = headings[index];
+    }
+}
@@ -0,0 +1,121 @@
+package frc.robot.Utility;
+
+import edu.wpi.first.math.MathUtil;
+
+/*
+    Primitive double swerve math used by the drive on every loop. Nothing in here
+    allocates, results are written into arrays owned by the caller so the same
+    buffers can be reused each cycle.
+
+    Module arrays are always ordered front left, back left, front right, back right
+    to match the order used in Drive.processInput.
+*/
+public class SwerveMath {
+
+    public static final int FRONT_LEFT = 0;
+    public static final int BACK_LEFT = 1;
+    public static final int FRONT_RIGHT = 2;
+    public static final int BACK_RIGHT = 3;
+    public static final int MODULE_COUNT = 4;
+
+    // Indexes into the result array of optimizeSteer()
+    public static final int STEER_TARGET_POSITION = 0;
+    public static final int STEER_SPEED = 1;
+
+    // Indexes into the result array of fieldCentric()
+    public static final int FORWARD = 0;
+    public static final int STRAFE = 1;
+
+    private SwerveMath() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    /*
+        Compute the module speeds and steer angles (in degrees) for a forward, strafe and
+        omega request. Positive Y is left, positive X is forward and positive rotation is
+        counter-clockwise to match the wpilib paths.
+        Speeds are not normalized, see maxSpeed().
+    */
+    public static void inverseKinematics(double forward, double strafe, double omega,
+            double wheelBaseLength, double wheelBaseWidth, double[] speeds, double[] angles) {
+        double omegaL2 = omega * (wheelBaseLength / 2.0);
+        double omegaW2 = omega * (wheelBaseWidth / 2.0);
+
+        // Compute the constants used later for calculating speeds and angles
+        double A = strafe - omegaL2;
+        double B = strafe + omegaL2;
+        double C = forward - omegaW2;
+        double D = forward + omegaW2;
+
+        speeds[FRONT_LEFT] = Math.hypot(B, C);
+        speeds[BACK_LEFT] = Math.hypot(A, C);
+        speeds[FRONT_RIGHT] = Math.hypot(B, D);
+        speeds[BACK_RIGHT] = Math.hypot(A, D);
+
+        angles[FRONT_LEFT] = Math.toDegrees(Math.atan2(B, C));
+        angles[BACK_LEFT] = Math.toDegrees(Math.atan2(A, C));
+        angles[FRONT_RIGHT] = Math.toDegrees(Math.atan2(B, D));
+        angles[BACK_RIGHT] = Math.toDegrees(Math.atan2(A, D));
+    }
+
+    /*
+        Largest module speed, never less than 1.0, so the speeds can be scaled to the
+        range [0.0, 1.0] by dividing by the result.
+    */
+    public static double maxSpeed(double[] speeds) {
+        double max = 1.0;
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            max = Math.max(max, speeds[i]);
+        }
+        return max;
+    }
+
+    /*
+        Work out the steer encoder target for a module.
+        currentPosition is the raw steer encoder value and angle is the requested module
+        angle in degrees from the swerve equations (-180 to 180, zero straight ahead).
+        result[STEER_TARGET_POSITION] gets the encoder position to send to the steer
+        motor and result[STEER_SPEED] gets the drive speed, reversed if the module was
+        flipped.
+    */
+    public static void optimizeSteer(double currentPosition, double angle, double speed, boolean allowReverse,
+            double countsPerRotation, double[] result) {
+        double currentAngle = currentPosition * 360.0 / countsPerRotation;
+        double targetAngle = -angle;
+
+        /*
+            The steer encoder is continuous, so the current angle can be any number of turns
+            either side of zero, and the requested angle can be outside -180 to 180 once the
+            dashboard offsets are added. Wrap the difference into -180 to 180 so the module
+            always takes the short way round. MathUtil.inputModulus handles negative values,
+            which % does not.
+        */
+        double deltaDegrees = MathUtil.inputModulus(targetAngle - currentAngle, -180.0, 180.0);
+
+        /*
+            If we need to turn more than 90 degrees, we can reverse the wheel direction
+            instead and only rotate by the complement
+        */
+        if (allowReverse && Math.abs(deltaDegrees) > 90.0) {
+            deltaDegrees -= 180.0 * Math.signum(deltaDegrees);
+            speed = -speed;
+        }
+
+        /*
+            Scale the new position to match the motor encoder and add change in position to current position.
+        */
+        result[STEER_TARGET_POSITION] = currentPosition + ((deltaDegrees / 360) * countsPerRotation);
+        result[STEER_SPEED] = speed;
+    }
+
+    /*
+        Rotate the joystick forward and strafe request by originCorrection (radians) for
+        field centric driving. Result is written to result[FORWARD] and result[STRAFE].
+    */
+    public static void fieldCentric(double forward, double strafe, double originCorrection, double[] result) {
+        double cos = Math.cos(originCorrection);
+        double sin = Math.sin(originCorrection);
+        result[FORWARD] = forward * cos + strafe * sin;
+        result[STRAFE] = strafe * cos - forward * sin;
+    }
+}
@@ -0,0 +1,164 @@
+package frc.robot.Utility;
+
+import java.util.Arrays;
+
+import edu.wpi.first.math.MathUtil;
+
+/*
+    Limits how fast the swerve module setpoints can change from one loop to the next,
+    so the modules are never asked for more than they can do.
+
+    Each module setpoint is treated as a velocity vector. The new setpoint for every
+    module is the last one moved part of the way toward the one asked for, by the
+    same fraction for all the modules. Module vectors are linear in the chassis
+    speeds, so the result is still a motion the whole chassis can make, just less of
+    the change that was asked for. The fraction is the largest one for which
+
+        - no module's velocity vector changes by more than maxAccel * dt, which keeps
+          the drive current and the wheel slip down, and
+        - no moving module has to steer by more than maxSteerRate * dt. Steering is
+          measured the short way round to either end of the wheel, since the module
+          reverses the wheel instead of turning more than 90 degrees.
+
+    A request to reverse direction passes through zero speed instead of flipping the
+    modules around. Modules at a standstill may steer as far as they like, and a
+    module with nothing to do keeps its last angle instead of snapping back to zero.
+
+    Speeds may be in any unit as long as maxAccel uses the same one. Angles are in
+    radians. Everything is preallocated and calculate() allocates nothing. Not thread
+    safe.
+
+    Usage:
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(4, 6.0, 8.0, 0.05);
+        ...
+        // speeds and angles hold the requested setpoints, and get the limited ones
+        generator.calculate(speeds, angles, dt);
+*/
+public class SwerveSetpointGenerator {
+
+    // Bisection steps when searching for the steer limit, 1/1024 of the change
+    private static final int STEER_SEARCH_STEPS = 10;
+
+    private final int moduleCount;
+    private final double maxAccel;
+    private final double maxSteerRate;
+    private final double stoppedSpeed;
+
+    // Last setpoint as vectors, and the angle each module was last sent
+    private final double[] lastVx;
+    private final double[] lastVy;
+    private final double[] lastAngles;
+    private final double[] desiredVx;
+    private final double[] desiredVy;
+    private double lastFraction = 1.0;
+
+    /*
+        maxAccel is in speed units per second, maxSteerRate in radians per second.
+        Modules slower than stoppedSpeed are not steer rate limited.
+    */
+    public SwerveSetpointGenerator(int moduleCount, double maxAccel, double maxSteerRate, double stoppedSpeed) {
+        this.moduleCount = moduleCount;
+        this.maxAccel = maxAccel;
+        this.maxSteerRate = maxSteerRate;
+        this.stoppedSpeed = stoppedSpeed;
+        lastVx = new double[moduleCount];
+        lastVy = new double[moduleCount];
+        lastAngles = new double[moduleCount];
+        desiredVx = new double[moduleCount];
+        desiredVy = new double[moduleCount];
+    }
+
+    /*
+        Start from the modules at speeds and angles, normally what they are measured
+        doing now.
+    */
+    public void reset(double[] speeds, double[] angles) {
+        for (int i = 0; i < moduleCount; i++) {
+            lastVx[i] = speeds[i] * Math.cos(angles[i]);
+            lastVy[i] = speeds[i] * Math.sin(angles[i]);
+            lastAngles[i] = angles[i];
+        }
+        lastFraction = 1.0;
+    }
+
+    /*
+        Start from every module stopped and pointing straight ahead.
+    */
+    public void reset() {
+        Arrays.fill(lastVx, 0.0);
+        Arrays.fill(lastVy, 0.0);
+        Arrays.fill(lastAngles, 0.0);
+        lastFraction = 1.0;
+    }
+
+    /*
+        Limit the requested setpoints in speeds and angles, dtSeconds after the last
+        call. The limited setpoints are written back into the same arrays, with the
+        speeds never negative.
+    */
+    public void calculate(double[] speeds, double[] angles, double dtSeconds) {
+        double fraction = 1.0;
+        double maxChange = maxAccel * dtSeconds;
+        for (int i = 0; i < moduleCount; i++) {
+            desiredVx[i] = speeds[i] * Math.cos(angles[i]);
+            desiredVy[i] = speeds[i] * Math.sin(angles[i]);
+            double change = Math.hypot(desiredVx[i] - lastVx[i], desiredVy[i] - lastVy[i]);
+            if (change * fraction > maxChange) {
+                fraction = maxChange / change;
+            }
+        }
+
+        double maxSteer = maxSteerRate * dtSeconds;
+        for (int i = 0; i < moduleCount; i++) {
+            if (Math.hypot(lastVx[i], lastVy[i]) < stoppedSpeed || steer(i, fraction) <= maxSteer) {
+                continue;
+            }
+            // The module is pointed along the last setpoint, so no change always fits
+            double low = 0.0;
+            double high = fraction;
+            for (int step = 0; step < STEER_SEARCH_STEPS; step++) {
+                double middle = (low + high) / 2;
+                if (steer(i, middle) <= maxSteer) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            fraction = low;
+        }
+
+        for (int i = 0; i < moduleCount; i++) {
+            double vx = lastVx[i] + (desiredVx[i] - lastVx[i]) * fraction;
+            double vy = lastVy[i] + (desiredVy[i] - lastVy[i]) * fraction;
+            double speed = Math.hypot(vx, vy);
+            if (speed > 1e-9) {
+                lastAngles[i] = Math.atan2(vy, vx);
+            }
+            lastVx[i] = vx;
+            lastVy[i] = vy;
+            speeds[i] = speed;
+            angles[i] = lastAngles[i];
+        }
+        lastFraction = fraction;
+    }
+
+    /*
+        How much of the requested change the last calculate() allowed, from 0 to 1.
+    */
+    public double getLastFraction() {
+        return lastFraction;
+    }
+
+    /*
+        Steering module i needs, in radians, to follow fraction of the requested
+        change. Measured to the nearer end of the wheel, so at most pi / 2.
+    */
+    private double steer(int i, double fraction) {
+        double vx = lastVx[i] + (desiredVx[i] - lastVx[i]) * fraction;
+        double vy = lastVy[i] + (desiredVy[i] - lastVy[i]) * fraction;
+        if (Math.hypot(vx, vy) <= 1e-9) {
+            return 0.0;
+        }
+        return Math.abs(MathUtil.angleModulus(2 * (Math.atan2(vy, vx) - lastAngles[i]))) / 2;
+    }
+}
@@ -0,0 +1,101 @@
+package frc.robot.Utility;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/*
+    Batched, rate limited replacement for SmartDashboard.putNumber on the hot path.
+
+    Each dashboard value is registered once as a NumberSignal, which holds a cached
+    NetworkTables publisher. Code in the loop only writes a double into the signal, and
+    Robot.robotPeriodic calls flush() once per loop to send the values that are due and
+    have actually changed. Values are published to the SmartDashboard table so the keys
+    on the dashboard stay the same.
+
+    Usage:
+        private static final Telemetry.NumberSignal armPosition =
+            Telemetry.addNumber("Current Arm Position", Telemetry.NORMAL);
+        ...
+        armPosition.set(getAbsArmPos());
+*/
+public class Telemetry {
+
+    // Publish periods in robot loops
+    public static final int FAST = 1; // 50Hz
+    public static final int NORMAL = 5; // 10Hz
+    public static final int SLOW = 25; // 2Hz
+
+    private static final int MAX_SIGNALS = 64;
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+    private static final NumberSignal[] signals = new NumberSignal[MAX_SIGNALS];
+    private static int signalCount = 0;
+
+    private Telemetry() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    public static class NumberSignal {
+        private final String key;
+        private final DoublePublisher publisher;
+        private int periodLoops;
+        private int loopsUntilPublish = 0;
+        private double value = 0.0;
+        private double publishedValue = Double.NaN;
+
+        private NumberSignal(String key, int periodLoops) {
+            this.key = key;
+            this.publisher = table.getDoubleTopic(key).publish();
+            this.periodLoops = periodLoops;
+        }
+
+        public void set(double value) {
+            this.value = value;
+        }
+
+        public double get() {
+            return value;
+        }
+
+        private void flush() {
+            if (--loopsUntilPublish > 0) {
+                return;
+            }
+            loopsUntilPublish = periodLoops;
+            if (value != publishedValue) {
+                publisher.set(value);
+                publishedValue = value;
+            }
+        }
+    }
+
+    /*
+        Register a number on the dashboard. Registering the same key twice returns the same
+        signal, and the fastest of the two periods is kept. Call this once, normally from a
+        static field, not from the loop.
+    */
+    public static synchronized NumberSignal addNumber(String key, int periodLoops) {
+        for (int i = 0; i < signalCount; i++) {
+            if (signals[i].key.equals(key)) {
+                signals[i].periodLoops = Math.min(signals[i].periodLoops, periodLoops);
+                return signals[i];
+            }
+        }
+        if (signalCount >= MAX_SIGNALS) {
+            throw new IllegalStateException("Too many Telemetry signals, raise MAX_SIGNALS");
+        }
+        NumberSignal signal = new NumberSignal(key, periodLoops);
+        signals[signalCount++] = signal;
+        return signal;
+    }
+
+    /*
+        Send every signal that is due. Called once at the end of each robot loop.
+    */
+    public static void flush() {
+        for (int i = 0; i < signalCount; i++) {
+            signals[i].flush();
+        }
+    }
+}
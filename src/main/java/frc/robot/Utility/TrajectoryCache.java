@@ -0,0 +1,178 @@
+package frc.robot.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.wpilibj.Filesystem;
+
+/*
+    Cache for PathPlanner path groups, keyed by path name and constraints.
+
+    Nothing is loaded until a group is asked for, and the same path and constraints are
+    only ever loaded once no matter how many autos use them. warmUp() queues a group to
+    be prepared on a background thread so it is ready before it is needed, which
+    Robot.robotInit does for every group in Autos.PATH_GROUPS.
+
+    Groups come from the precompiled TrajectoryTable when it has them and the CRC of the
+    .path file still matches. Anything else is generated with PathPlanner, with a warning
+    to rerun ./gradlew compileTrajectories.
+
+    Usage:
+        private static final TrajectoryCache.PathGroup CENTER_RAMP = new TrajectoryCache.PathGroup(
+            "Center-Ramp", new PathConstraints(1, 1), new PathConstraints(1.5, 1));
+        ...
+        List<PathPlannerTrajectory> trajectories = CENTER_RAMP.load();
+*/
+public class TrajectoryCache {
+
+    private static final ConcurrentHashMap<String, CompletableFuture<List<PathPlannerTrajectory>>> cache =
+        new ConcurrentHashMap<>();
+
+    private static final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TrajectoryWarmUp");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private TrajectoryCache() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    /*
+        A path and the constraints for each of its segments, the same arguments
+        PathPlanner.loadPathGroup takes.
+    */
+    public static class PathGroup {
+        private final String name;
+        private final PathConstraints[] constraints;
+        private final String key;
+
+        public PathGroup(String name, PathConstraints constraint, PathConstraints... constraints) {
+            this.name = name;
+            this.constraints = new PathConstraints[constraints.length + 1];
+            this.constraints[0] = constraint;
+            System.arraycopy(constraints, 0, this.constraints, 1, constraints.length);
+            this.key = key(name, this.constraints);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /*
+            Unique name for the path and constraints, for example Center-Ramp@1.0-1.0_1.5-1.0
+        */
+        public String getKey() {
+            return key;
+        }
+
+        /*
+            Generate the trajectories with PathPlanner, bypassing the cache.
+        */
+        public List<PathPlannerTrajectory> generate() {
+            List<PathPlannerTrajectory> group = PathPlanner.loadPathGroup(name, constraints[0],
+                Arrays.copyOfRange(constraints, 1, constraints.length));
+            if (group == null) {
+                throw new IllegalArgumentException("PathPlanner path not found: " + name);
+            }
+            return Collections.unmodifiableList(group);
+        }
+
+        /*
+            Get the trajectories from the cache. Blocks if they are still being prepared
+            by warmUp().
+        */
+        public List<PathPlannerTrajectory> load() {
+            return request(this, false).join();
+        }
+
+        /*
+            Start preparing the trajectories on the background thread, if they are not
+            cached yet.
+        */
+        public void warmUp() {
+            request(this, true);
+        }
+
+        public boolean isCached() {
+            CompletableFuture<List<PathPlannerTrajectory>> future = cache.get(key);
+            return future != null && future.isDone();
+        }
+    }
+
+    private static String key(String name, PathConstraints[] constraints) {
+        StringBuilder key = new StringBuilder(name).append('@');
+        for (int i = 0; i < constraints.length; i++) {
+            if (i > 0) {
+                key.append('_');
+            }
+            key.append(constraints[i].maxVelocity).append('-').append(constraints[i].maxAcceleration);
+        }
+        return key.toString();
+    }
+
+    private static CompletableFuture<List<PathPlannerTrajectory>> request(PathGroup group, boolean async) {
+        CompletableFuture<List<PathPlannerTrajectory>> future = cache.get(group.key);
+        if (future != null) {
+            return future;
+        }
+
+        CompletableFuture<List<PathPlannerTrajectory>> created = new CompletableFuture<>();
+        future = cache.putIfAbsent(group.key, created);
+        if (future != null) {
+            return future;
+        }
+
+        Runnable load = () -> {
+            try {
+                created.complete(load(group));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+        };
+        if (async) {
+            warmUpExecutor.execute(load);
+        } else {
+            load.run();
+        }
+        return created;
+    }
+
+    private static List<PathPlannerTrajectory> load(PathGroup group) {
+        List<PathPlannerTrajectory> trajectories = TrajectoryTable.get(group.key, pathCrc(group.name));
+        if (trajectories != null) {
+            return trajectories;
+        }
+        System.err.println("Generating " + group.key + ", it is missing from " + TrajectoryTable.getFile()
+            + ". Run ./gradlew compileTrajectories");
+        return group.generate();
+    }
+
+    /*
+        CRC32 of the .path file, used to tell if a compiled trajectory is out of date.
+    */
+    public static long pathCrc(String name) {
+        File pathFile = new File(Filesystem.getDeployDirectory(), "pathplanner/" + name + ".path");
+        try {
+            CRC32 crc = new CRC32();
+            crc.update(Files.readAllBytes(pathFile.toPath()));
+            return crc.getValue();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package frc.robot.Utility;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.EventMarker;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.PathPlannerTrajectory.StopEvent;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+
+/*
+    Packed table of precompiled trajectories, deploy/pathplanner/trajectories.bin.
+
+    The table is built at compile time by ./gradlew compileTrajectories (see
+    TrajectoryCompiler) from every .path file, with the constraints used in Autos. It is
+    a build output: it is written to build/generated/deploy and deployed from there
+    alongside src/main/deploy, and the desktop simulation reads it from the build
+    folder. At runtime the whole file is memory mapped once and path groups are read
+    straight out of the mapping, so the robot does no trajectory generation on boot.
+
+    File format (big endian):
+        int magic, int version, int groupCount
+        index, for each group: string key, long pathCrc, int offset of the group data
+        group data: int trajectoryCount, then for each trajectory: int stateCount, then
+            per state the doubles time, velocity, acceleration, x, y, heading,
+            curvature, angular velocity, holonomic rotation and holonomic angular velocity,
+            then int markerCount and per event marker: names, double time, x and y,
+            then the start and end stop events: names, string execution behavior,
+            string wait behavior, double wait time
+        names: int count, then each name as a string
+        strings, including the keys: short length, then UTF-8 bytes
+*/
+public class TrajectoryTable {
+
+    private static final int MAGIC = 0x5454424C; // "TTBL"
+    private static final int VERSION = 2;
+    private static final String PATH = "pathplanner/trajectories.bin";
+
+    private static ByteBuffer table;
+    private static Map<String, long[]> index; // key -> { pathCrc, offset }
+    private static boolean opened = false;
+
+    private TrajectoryTable() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+
+    public static File getFile() {
+        if (RobotBase.isReal()) {
+            return new File(Filesystem.getDeployDirectory(), PATH);
+        }
+        return new File("build/generated/deploy", PATH);
+    }
+
+    /*
+        A compiled path group ready to be written to the table.
+    */
+    public static class Entry {
+        private final String key;
+        private final long pathCrc;
+        private final List<PathPlannerTrajectory> group;
+
+        public Entry(String key, long pathCrc, List<PathPlannerTrajectory> group) {
+            this.key = key;
+            this.pathCrc = pathCrc;
+            this.group = group;
+        }
+    }
+
+    /*
+        Look up a path group. Returns null if the table is missing, does not have the
+        group, or the group was compiled from a different version of the .path file.
+    */
+    public static synchronized List<PathPlannerTrajectory> get(String key, long pathCrc) {
+        if (!opened) {
+            open();
+        }
+        if (index == null) {
+            return null;
+        }
+        long[] entry = index.get(key);
+        if (entry == null || entry[0] != pathCrc) {
+            return null;
+        }
+        ByteBuffer buffer = table.duplicate();
+        buffer.position((int) entry[1]);
+        return readGroup(buffer);
+    }
+
+    private static void open() {
+        opened = true;
+        File file = getFile();
+        if (!file.isFile()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                System.err.println("Ignoring " + file + ", wrong format or version");
+                return;
+            }
+            int groupCount = buffer.getInt();
+            Map<String, long[]> entries = new HashMap<>();
+            for (int i = 0; i < groupCount; i++) {
+                byte[] key = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(key);
+                long pathCrc = buffer.getLong();
+                int offset = buffer.getInt();
+                entries.put(new String(key, StandardCharsets.UTF_8), new long[] { pathCrc, offset });
+            }
+            table = buffer;
+            index = entries;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read " + file + ": " + e);
+        }
+    }
+
+    private static List<PathPlannerTrajectory> readGroup(ByteBuffer buffer) {
+        int trajectoryCount = buffer.getInt();
+        List<PathPlannerTrajectory> group = new ArrayList<>(trajectoryCount);
+        for (int i = 0; i < trajectoryCount; i++) {
+            int stateCount = buffer.getInt();
+            List<Trajectory.State> states = new ArrayList<>(stateCount);
+            for (int j = 0; j < stateCount; j++) {
+                PathPlannerState state = new PathPlannerState();
+                state.timeSeconds = buffer.getDouble();
+                state.velocityMetersPerSecond = buffer.getDouble();
+                state.accelerationMetersPerSecondSq = buffer.getDouble();
+                double x = buffer.getDouble();
+                double y = buffer.getDouble();
+                state.poseMeters = new Pose2d(x, y, new Rotation2d(buffer.getDouble()));
+                state.curvatureRadPerMeter = buffer.getDouble();
+                state.angularVelocityRadPerSec = buffer.getDouble();
+                state.holonomicRotation = new Rotation2d(buffer.getDouble());
+                state.holonomicAngularVelocityRadPerSec = buffer.getDouble();
+                states.add(state);
+            }
+            int markerCount = buffer.getInt();
+            List<EventMarker> markers = new ArrayList<>(markerCount);
+            for (int j = 0; j < markerCount; j++) {
+                EventMarker marker = new EventMarker(readNames(buffer), 0);
+                marker.timeSeconds = buffer.getDouble();
+                double x = buffer.getDouble();
+                marker.positionMeters = new Translation2d(x, buffer.getDouble());
+                markers.add(marker);
+            }
+            StopEvent startStopEvent = readStopEvent(buffer);
+            StopEvent endStopEvent = readStopEvent(buffer);
+            group.add(new PathPlannerTrajectory(states, markers, startStopEvent, endStopEvent, true));
+        }
+        return Collections.unmodifiableList(group);
+    }
+
+    private static StopEvent readStopEvent(ByteBuffer buffer) {
+        List<String> names = readNames(buffer);
+        StopEvent.ExecutionBehavior executionBehavior = StopEvent.ExecutionBehavior.valueOf(readString(buffer));
+        StopEvent.WaitBehavior waitBehavior = StopEvent.WaitBehavior.valueOf(readString(buffer));
+        return new StopEvent(names, executionBehavior, waitBehavior, buffer.getDouble());
+    }
+
+    private static List<String> readNames(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(readString(buffer));
+        }
+        return names;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+        Write a table, through a temporary file so a half written table is never read.
+    */
+    public static void write(File file, List<Entry> entries) throws IOException {
+        // Group data goes after the index, so build it first to know the offsets
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        int[] offsets = new int[entries.size()];
+        int indexSize = 12;
+        for (Entry entry : entries) {
+            indexSize += 2 + entry.key.getBytes(StandardCharsets.UTF_8).length + 8 + 4;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            offsets[i] = indexSize + dataOut.size();
+            writeGroup(dataOut, entries.get(i).group);
+        }
+
+        file.getParentFile().mkdirs();
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                byte[] key = entries.get(i).key.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(key.length);
+                out.write(key);
+                out.writeLong(entries.get(i).pathCrc);
+                out.writeInt(offsets[i]);
+            }
+            data.writeTo(out);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeGroup(DataOutputStream out, List<PathPlannerTrajectory> group) throws IOException {
+        out.writeInt(group.size());
+        for (PathPlannerTrajectory trajectory : group) {
+            List<Trajectory.State> states = trajectory.getStates();
+            out.writeInt(states.size());
+            for (Trajectory.State s : states) {
+                PathPlannerState state = (PathPlannerState) s;
+                out.writeDouble(state.timeSeconds);
+                out.writeDouble(state.velocityMetersPerSecond);
+                out.writeDouble(state.accelerationMetersPerSecondSq);
+                out.writeDouble(state.poseMeters.getX());
+                out.writeDouble(state.poseMeters.getY());
+                out.writeDouble(state.poseMeters.getRotation().getRadians());
+                out.writeDouble(state.curvatureRadPerMeter);
+                out.writeDouble(state.angularVelocityRadPerSec);
+                out.writeDouble(state.holonomicRotation.getRadians());
+                out.writeDouble(state.holonomicAngularVelocityRadPerSec);
+            }
+            out.writeInt(trajectory.getMarkers().size());
+            for (EventMarker marker : trajectory.getMarkers()) {
+                writeNames(out, marker.names);
+                out.writeDouble(marker.timeSeconds);
+                out.writeDouble(marker.positionMeters.getX());
+                out.writeDouble(marker.positionMeters.getY());
+            }
+            writeStopEvent(out, trajectory.getStartStopEvent());
+            writeStopEvent(out, trajectory.getEndStopEvent());
+        }
+    }
+
+    private static void writeStopEvent(DataOutputStream out, StopEvent stopEvent) throws IOException {
+        writeNames(out, stopEvent.names);
+        writeString(out, stopEvent.executionBehavior.name());
+        writeString(out, stopEvent.waitBehavior.name());
+        out.writeDouble(stopEvent.waitTime);
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            writeString(out, name);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
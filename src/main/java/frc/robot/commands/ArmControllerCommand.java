@@ -3,6 +3,7 @@ package frc.robot.commands;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.robot.Utility.LoopProfiler;
 import frc.robot.subsystems.Arm;
 
 public class ArmControllerCommand extends CommandBase {
@@ -11,6 +12,8 @@ public class ArmControllerCommand extends CommandBase {
 
     private Arm _arm;
 
+    private static final int EXECUTE_SECTION = LoopProfiler.register("ArmControllerCommand.execute", 2.0);
+
     /** Creates a new ArmCommand. */
     public ArmControllerCommand(Arm arm, CommandXboxController controller) {
         this._arm = arm;
@@ -27,6 +30,7 @@ public class ArmControllerCommand extends CommandBase {
     // Called every time the scheduler runs while the command is scheduled.
     @Override
     public void execute() {
+        LoopProfiler.start(EXECUTE_SECTION);
         if(Math.abs(_controller.getRightY()) >= .07) {
             _arm.extensionMove(_controller.getRightY());
         } else {
@@ -38,6 +42,7 @@ public class ArmControllerCommand extends CommandBase {
         } else {
             _arm.shoulderMove(0);
         }
+        LoopProfiler.stop(EXECUTE_SECTION);
     }
 
     // Called once the command ends or is interrupted.
@@ -3,9 +3,12 @@ package frc.robot.commands;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants.ArmConstants;
+import frc.robot.Utility.AsyncLogger;
+import frc.robot.Utility.DataLogger;
+import frc.robot.Utility.LoopProfiler;
+import frc.robot.Utility.Telemetry;
 import frc.robot.subsystems.Arm;
 
 public class ArmPositionCommand extends CommandBase {
@@ -16,6 +19,20 @@ public class ArmPositionCommand extends CommandBase {
     private double _duration;
     private Timer _timer;
 
+    private static final int EXECUTE_SECTION = LoopProfiler.register("ArmPositionCommand.execute", 2.0);
+    private static final Telemetry.NumberSignal shoulderChangeSignal =
+        Telemetry.addNumber("Calculated Shoulder Change", Telemetry.NORMAL);
+    private static final Telemetry.NumberSignal extensionChangeSignal =
+        Telemetry.addNumber("Calculated Extension Change", Telemetry.NORMAL);
+    private static final int SHOULDER_EVENT =
+        AsyncLogger.registerEvent("ArmPositionCommand shoulder target,position");
+    private static final int EXTENSION_EVENT =
+        AsyncLogger.registerEvent("ArmPositionCommand extension target,position");
+    private static final int ACTIVE_LOG = DataLogger.addBoolean("ArmPositionCommand/Active");
+    private static final int SHOULDER_TARGET_LOG = DataLogger.addDouble("ArmPositionCommand/Shoulder Target");
+    private static final int EXTENSION_TARGET_LOG = DataLogger.addDouble("ArmPositionCommand/Extension Target");
+    private static final int DURATION_LOG = DataLogger.addDouble("ArmPositionCommand/Duration");
+
     private PIDController _shoulderPIDController;
     private final double shoulderP = 0.08; //0.04;
     private final double shoulderI = 0.0;
@@ -49,18 +66,24 @@ public class ArmPositionCommand extends CommandBase {
     public void initialize() {
         _timer = new Timer();
         _timer.start();
+        DataLogger.setBoolean(ACTIVE_LOG, true);
+        DataLogger.set(SHOULDER_TARGET_LOG, _expectedShoulderPosition);
+        DataLogger.set(EXTENSION_TARGET_LOG, _expectedExtensionPosition);
+        DataLogger.set(DURATION_LOG, _duration);
     }
 
     // Called every time the scheduler runs while the command is scheduled.
     @Override
     public void execute() {
+        LoopProfiler.start(EXECUTE_SECTION);
         if (_expectedShoulderPosition >= ArmConstants.shoulderEncoderBottom
                 && _expectedShoulderPosition <= ArmConstants.shoulderEncoderMax) {
-            System.out.println("going to shoulder position: " + _expectedShoulderPosition + " at " + _arm.getAbsArmPos());
-            double calculatedChange = _shoulderPIDController.calculate(_arm.getAbsArmPos(), _expectedShoulderPosition);
+            double shoulderPosition = _arm.getAbsArmPos();
+            AsyncLogger.log(SHOULDER_EVENT, _expectedShoulderPosition, shoulderPosition);
+            double calculatedChange = _shoulderPIDController.calculate(shoulderPosition, _expectedShoulderPosition);
             double speed = MathUtil.clamp(calculatedChange, -1, 1);
 
-            SmartDashboard.putNumber("Calculated Shoulder Change", calculatedChange);
+            shoulderChangeSignal.set(calculatedChange);
 
             _arm.shoulderMove(speed);
         }
@@ -70,17 +93,18 @@ public class ArmPositionCommand extends CommandBase {
         if (_shoulderPIDController.atSetpoint()) {
             if (_expectedExtensionPosition >= ArmConstants.extensionEncoderIn
                     && _expectedExtensionPosition <= ArmConstants.extensionEncoderOut) {
-                System.out.println("going to extension position: " + _expectedExtensionPosition + " at "
-                        + _arm.getExtensionPosition());
-                double calculatedChange = _extensionPIDController.calculate(_arm.getExtensionPosition(),
+                double extensionPosition = _arm.getExtensionPosition();
+                AsyncLogger.log(EXTENSION_EVENT, _expectedExtensionPosition, extensionPosition);
+                double calculatedChange = _extensionPIDController.calculate(extensionPosition,
                         _expectedExtensionPosition);
                 double speed = MathUtil.clamp(calculatedChange, -1, 1);
 
-                SmartDashboard.putNumber("Calculated Extension Change", calculatedChange);
+                extensionChangeSignal.set(calculatedChange);
 
                 _arm.extensionMove(-speed);
             }
         }
+        LoopProfiler.stop(EXECUTE_SECTION);
     }
 
     // Called once the command ends or is interrupted.
@@ -88,6 +112,7 @@ public class ArmPositionCommand extends CommandBase {
     public void end(boolean interrupted) {
         _arm.shoulderMove(0);
         _arm.extensionMove(0);
+        DataLogger.setBoolean(ACTIVE_LOG, false);
     }
 
     // Returns true when the command should end.
@@ -4,7 +4,6 @@
 
 package frc.robot.commands;
 
-import com.pathplanner.lib.PathPlanner;
 import com.pathplanner.lib.PathPlannerTrajectory;
 
 import java.util.List;
@@ -22,6 +21,7 @@ import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.Constants.ArmConstants;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Utility.TrajectoryCache;
 import frc.robot.commands.autonomous.DoNothingCommand;
 import frc.robot.subsystems.Arm;
 import frc.robot.subsystems.Drive;
@@ -29,6 +29,32 @@ import frc.robot.subsystems.Intake;
 import frc.robot.subsystems.NavXGyro;
 
 public final class Autos {
+  /*
+   * Every path group the autos follow, with the constraints for each segment.
+   * ./gradlew compileTrajectories builds all of these into the trajectory table
+   * that is deployed with the code.
+   */
+  public static final TrajectoryCache.PathGroup CENTER_RAMP = new TrajectoryCache.PathGroup("Center-Ramp",
+      new PathConstraints(1, 1), new PathConstraints(1, 1), new PathConstraints(1.5, 1));
+  public static final TrajectoryCache.PathGroup CENTER_RAMP_CUBE = new TrajectoryCache.PathGroup("Center-Ramp-Cube",
+      new PathConstraints(1, 1.25), new PathConstraints(2, 1.5));
+  public static final TrajectoryCache.PathGroup CENTER_RAMP_CUBE_TEST = new TrajectoryCache.PathGroup("Center-Ramp-Cube",
+      new PathConstraints(2, 1.5), new PathConstraints(2, 1.75));
+  public static final TrajectoryCache.PathGroup BARRIER_K_RAMP = new TrajectoryCache.PathGroup("Barrier-K-Ramp",
+      new PathConstraints(1, 1), new PathConstraints(3, 3), new PathConstraints(5, 3));
+  public static final TrajectoryCache.PathGroup BARRIER_CONE = new TrajectoryCache.PathGroup("Barrier-K-Ramp",
+      new PathConstraints(1, 1), new PathConstraints(3, 3));
+  public static final TrajectoryCache.PathGroup FAR_BARRIER_TWO = new TrajectoryCache.PathGroup("Blue-Far-Barrier-Two",
+      new PathConstraints(1, 1), new PathConstraints(4, 3), new PathConstraints(4, 3));
+  public static final TrajectoryCache.PathGroup CABLE_STRAIGHT = new TrajectoryCache.PathGroup("Blue-Cable-Straight",
+      new PathConstraints(1.5, 2), new PathConstraints(2, 2), new PathConstraints(5, 3));
+  public static final TrajectoryCache.PathGroup BARRIER_STRAIGHT = new TrajectoryCache.PathGroup("Cable-Straight",
+      new PathConstraints(1.5, 2), new PathConstraints(5, 3));
+
+  public static final List<TrajectoryCache.PathGroup> PATH_GROUPS = List.of(
+      CENTER_RAMP, CENTER_RAMP_CUBE, CENTER_RAMP_CUBE_TEST, BARRIER_K_RAMP, BARRIER_CONE,
+      FAR_BARRIER_TWO, CABLE_STRAIGHT, BARRIER_STRAIGHT);
+
   /** Example static factory for an autonomous command. */
   // public static CommandBase exampleAuto(ExampleSubsystem subsystem) {
   // return Commands.sequence(subsystem.exampleMethodCommand(), new
@@ -48,8 +74,7 @@ public final class Autos {
     // PathPlannerTrajectory pathTrajectory = PathPlanner.loadPath("Center-Ramp", 5,
     // 3);
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Center-Ramp",
-        new PathConstraints(1, 1), new PathConstraints(1, 1), new PathConstraints(1.5, 1));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = CENTER_RAMP.load();
     PPSwerveControllerCommand cubeDropDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand overRampDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true, drive);
     PPSwerveControllerCommand backToRampDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(2), true, drive);
@@ -78,8 +103,7 @@ public final class Autos {
     // PathPlannerTrajectory pathTrajectory = PathPlanner.loadPath("Center-Ramp", 5,
     // 3);
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Center-Ramp-Cube",
-        new PathConstraints(1, 1.25), new PathConstraints(2, 1.5));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = CENTER_RAMP_CUBE.load();
     PPSwerveControllerCommand overRampDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand backToRampDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true, drive);
 
@@ -111,8 +135,7 @@ public final class Autos {
     // PathPlannerTrajectory pathTrajectory = PathPlanner.loadPath("Center-Ramp", 5,
     // 3);
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Center-Ramp-Cube",
-        new PathConstraints(2, 1.5), new PathConstraints(2, 1.75));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = CENTER_RAMP_CUBE_TEST.load();
     PPSwerveControllerCommand overRampDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand backToRampDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true, drive);
 
@@ -144,8 +167,7 @@ public final class Autos {
     // PathPlannerTrajectory pathTrajectory = PathPlanner.loadPath("Center-Ramp", 5,
     // 3);
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Barrier-K-Ramp",
-        new PathConstraints(1, 1), new PathConstraints(3, 3), new PathConstraints(5, 3));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = BARRIER_K_RAMP.load();
     PPSwerveControllerCommand cubeDropDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand exitCommunityDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true,
       drive);
@@ -176,8 +198,7 @@ public final class Autos {
 
   public static CommandBase barrierCone(Drive drive, NavXGyro gyro, Intake intake, Arm arm) {
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Barrier-K-Ramp",
-      new PathConstraints(1, 1), new PathConstraints(3, 3));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = BARRIER_CONE.load();
     PPSwerveControllerCommand cubeDropDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand exitCommunityDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true,
       drive);
@@ -231,17 +252,13 @@ public final class Autos {
   // }
 
   public static CommandBase farBarrierCubeScoreLow(Drive drive, Intake intake, Arm arm) {
-    // set drive to brake mode to stop before half court.
-    drive.setDriveModeBrake();
-    
-    String path = "Blue-Far-Barrier-Two";
+    // String path = "Blue-Far-Barrier-Two";
     // DriverStation.Alliance alliance = DriverStation.getAlliance();
     // if (alliance == DriverStation.Alliance.Red) {
     //   path = "Red-Far-Barrier-Two";
     // }
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup(path,
-      new PathConstraints(1, 1), new PathConstraints(4, 3), new PathConstraints(4, 3));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = FAR_BARRIER_TWO.load();
     PPSwerveControllerCommand cubeDropDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand driveSecondCubeCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true,
       drive);
@@ -251,6 +268,9 @@ public final class Autos {
 
     return new SequentialCommandGroup(
 
+      // set drive to brake mode to stop before half court.
+      new InstantCommand(() -> drive.setDriveModeBrake()),
+
       new InstantCommand(() -> {
         // Reset odometry for the first path you run during auto
         drive.resetOdometryForState(pathTrajectoryGroup.get(0).getInitialState());
@@ -280,8 +300,7 @@ public final class Autos {
     // PathPlannerTrajectory pathTrajectory = PathPlanner.loadPath("Center-Ramp", 5,
     // 3);
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Barrier-K-Ramp",
-      new PathConstraints(1, 1), new PathConstraints(3, 3), new PathConstraints(5, 3));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = BARRIER_K_RAMP.load();
     PPSwerveControllerCommand cubeDropDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand exitCommunityDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true,
       drive);
@@ -314,15 +333,14 @@ public final class Autos {
     // Generate trajectory
     // PathPlannerTrajectory pathTrajectory = PathPlanner.loadPath("Cable-Straight",
     // new PathConstraints(1.5, 2));
-    String path = "Blue-Cable-Straight";
+    // String path = "Blue-Cable-Straight";
 
     // DriverStation.Alliance alliance = DriverStation.getAlliance();
     // if (alliance == DriverStation.Alliance.Red) {
     //   path = "Red-Cable-Straight";
     // }
 
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup(path,
-        new PathConstraints(1.5, 2), new PathConstraints(2, 2), new PathConstraints(5, 3));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = CABLE_STRAIGHT.load();
 
     PPSwerveControllerCommand cubeJigCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand beforeCableDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true, drive);
@@ -354,8 +372,7 @@ public final class Autos {
     // Generate trajectory
     // PathPlannerTrajectory pathTrajectory =
     // PathPlanner.loadPath("Barrier-Straight", new PathConstraints(4, 3));
-    List<PathPlannerTrajectory> pathTrajectoryGroup = PathPlanner.loadPathGroup("Cable-Straight",
-        new PathConstraints(1.5, 2), new PathConstraints(5, 3));
+    List<PathPlannerTrajectory> pathTrajectoryGroup = BARRIER_STRAIGHT.load();
 
     PPSwerveControllerCommand cubeJigCommand = getTrajectoryCommand(pathTrajectoryGroup.get(0), true, drive);
     PPSwerveControllerCommand exitDriveCommand = getTrajectoryCommand(pathTrajectoryGroup.get(1), true, drive);
@@ -10,6 +10,8 @@ import com.revrobotics.CANSparkMax.IdleMode;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Utility.DataLogger;
+import frc.robot.Utility.LoopProfiler;
 import frc.robot.subsystems.Drive;
 import frc.robot.subsystems.NavXGyro;
 
@@ -18,6 +20,9 @@ public class DriveBalanceCommand extends CommandBase {
     private Drive _drive;
     private NavXGyro _navXGyro;
 
+    private static final int EXECUTE_SECTION = LoopProfiler.register("DriveBalanceCommand.execute", 2.0);
+    private static final int ACTIVE_LOG = DataLogger.addBoolean("DriveBalanceCommand/Active");
+
     public static final double OMEGA_SCALE = 1.0 / 45.0;// 30
     public static final double DEADZONE_LSTICK = 0.07;
     private static final double DEADZONE_RSTICK = 0.07;
@@ -57,11 +62,13 @@ public class DriveBalanceCommand extends CommandBase {
         balanceContoller.setI(BalanceI);
         balanceContoller.setD(BalanceD);
         balanceContoller.setTolerance(1);
+        DataLogger.setBoolean(ACTIVE_LOG, true);
     }
 
     // Called every time the scheduler runs while the command is scheduled.
     @Override
     public void execute() {
+        LoopProfiler.start(EXECUTE_SECTION);
         _timer.start();
         double directionforce = balanceContoller.calculate(_navXGyro.getPitchAngle(), 0);
         // SmartDashboard.putNumber("Current Roll", _navXGyro.getPitchAngle());
@@ -100,12 +107,14 @@ public class DriveBalanceCommand extends CommandBase {
             this._drive.processInput(forward, strafe, omega, false, false);
         }
         _timer.reset();
+        LoopProfiler.stop(EXECUTE_SECTION);
     }
 
     // Called once the command ends or is interrupted.
     @Override
     public void end(boolean interrupted) {
         this._drive.processInput(0.0, 0.0, 0.0, true, false);
+        DataLogger.setBoolean(ACTIVE_LOG, false);
         // Reset Drives back to coast mode for teleop.
         //this._drive.setDrivesMode(IdleMode.kCoast);
 
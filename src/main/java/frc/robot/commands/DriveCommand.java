@@ -8,6 +8,9 @@ import com.revrobotics.CANSparkMax.IdleMode;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.button.CommandJoystick;
+import frc.robot.Utility.DataLogger;
+import frc.robot.Utility.LoopProfiler;
+import frc.robot.Utility.SwerveMath;
 import frc.robot.subsystems.Drive;
 import frc.robot.subsystems.NavXGyro;
 
@@ -18,12 +21,23 @@ public class DriveCommand extends CommandBase {
   private CommandJoystick rightStick;
   private NavXGyro _navXGyro;
 
+  private static final int EXECUTE_SECTION = LoopProfiler.register("DriveCommand.execute", 2.0);
+
+  // Raw driver inputs, logged so a match can be replayed through this command
+  private static final int FORWARD_LOG = DataLogger.addDouble("DriveCommand/Stick Forward");
+  private static final int STRAFE_LOG = DataLogger.addDouble("DriveCommand/Stick Strafe");
+  private static final int OMEGA_LOG = DataLogger.addDouble("DriveCommand/Stick Omega");
+  private static final int ROBOT_CENTRIC_LOG = DataLogger.addBoolean("DriveCommand/Robot Centric");
+  private static final int DRIVE_CORRECT_LOG = DataLogger.addBoolean("DriveCommand/Drive Correct");
+  private static final int ACTIVE_LOG = DataLogger.addBoolean("DriveCommand/Active");
+
   public static final double OMEGA_SCALE = 1.0 / 45.0;//30
 	public static final double DEADZONE_LSTICK = 0.1;
 	private static final double DEADZONE_RSTICK = 0.1;
 	private double originHeading = 0.0;
 	private double leftPow = 1;
 	private double rightPow = 1;
+	private final double[] fieldCentricResult = new double[2];
 
   /** Creates a new DriveCommand using a standard set of joysticks as the driver joysticks. */
   public DriveCommand(Drive drive, CommandJoystick leftStick, CommandJoystick rightStick, NavXGyro gyro) {
@@ -44,12 +58,14 @@ public class DriveCommand extends CommandBase {
         This will be used as the initial angle of the robot for field centric control.
     */
     originHeading = _navXGyro.getZeroAngle();
+    DataLogger.setBoolean(ACTIVE_LOG, true);
     //_drive.setDrivesMode(IdleMode.kCoast);
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
+    LoopProfiler.start(EXECUTE_SECTION);
     // final double originOffset = 360 - originHeading;
 		// originCorr = _navXGyro.getNavAngle() + originOffset;
 
@@ -99,6 +115,11 @@ public class DriveCommand extends CommandBase {
       omega = 0.0;
     boolean stickFieldCentric = leftStick.trigger().getAsBoolean();
     boolean driveCorrect = rightStick.trigger().getAsBoolean();
+    DataLogger.set(FORWARD_LOG, stickForward);
+    DataLogger.set(STRAFE_LOG, stickStrafe);
+    DataLogger.set(OMEGA_LOG, stickOmega);
+    DataLogger.setBoolean(ROBOT_CENTRIC_LOG, stickFieldCentric);
+    DataLogger.setBoolean(DRIVE_CORRECT_LOG, driveCorrect);
 
     if (!stickFieldCentric) {
       /*
@@ -131,9 +152,9 @@ public class DriveCommand extends CommandBase {
           the robot.
       */
 
-      final double temp = forward * Math.cos(originCorrection) + strafe * Math.sin(originCorrection);
-      strafe = strafe * Math.cos(originCorrection) - forward * Math.sin(originCorrection);
-      forward = temp;
+      SwerveMath.fieldCentric(forward, strafe, originCorrection, fieldCentricResult);
+      forward = fieldCentricResult[SwerveMath.FORWARD];
+      strafe = fieldCentricResult[SwerveMath.STRAFE];
     }
   
     /* 
@@ -153,11 +174,13 @@ public class DriveCommand extends CommandBase {
       Take the calculated values from the joysticks and use the values to operate the drive system. 
     */
     this._drive.processInput(forward, strafe, omega, deadStick, driveCorrect);
+    LoopProfiler.stop(EXECUTE_SECTION);
   }
 
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
+    DataLogger.setBoolean(ACTIVE_LOG, false);
   }
 
   // Returns true when the command should end.
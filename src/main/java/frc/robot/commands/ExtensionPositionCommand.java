@@ -2,8 +2,8 @@ package frc.robot.commands;
 
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Utility.Telemetry;
 import frc.robot.subsystems.Arm;
 
 public class ExtensionPositionCommand  extends CommandBase {
@@ -17,6 +17,9 @@ public class ExtensionPositionCommand  extends CommandBase {
     private double extensionI = 0.0;
     private double extensionD = 0.0;
 
+    private static final Telemetry.NumberSignal extensionPowerSignal =
+        Telemetry.addNumber("Extension Power", Telemetry.NORMAL);
+
 
     /** Creates a new ExtensionPositionCommand. */
     public ExtensionPositionCommand(Arm arm, double position, double runDurationInSeconds) {
@@ -41,7 +44,7 @@ public class ExtensionPositionCommand  extends CommandBase {
     @Override
     public void execute() {
             double directionforce = extensionContoller.calculate(_arm.getExtensionPosition(), _expectedPosition);
-            SmartDashboard.putNumber("Extension Power", directionforce);
+            extensionPowerSignal.set(directionforce);
             _arm.extensionMove(directionforce);
 
             // if(_expectedPosition > _arm.getExtensionPosition()) {
@@ -2,6 +2,7 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.robot.Utility.LoopProfiler;
 import frc.robot.subsystems.Intake;
 
 public class IntakeControllerCommand extends CommandBase {
@@ -10,6 +11,8 @@ public class IntakeControllerCommand extends CommandBase {
 
     private Intake _intake;
 
+    private static final int EXECUTE_SECTION = LoopProfiler.register("IntakeControllerCommand.execute", 2.0);
+
     /** Creates a new IntakeCommand. */
     public IntakeControllerCommand(Intake intake, CommandXboxController controller) {
         this._intake = intake;
@@ -26,6 +29,7 @@ public class IntakeControllerCommand extends CommandBase {
     // Called every time the scheduler runs while the command is scheduled.
     @Override
     public void execute() {
+        LoopProfiler.start(EXECUTE_SECTION);
         if (Math.abs(_controller.getLeftTriggerAxis()) >= .02) {
             // Cone Intake
             _intake.intakeMove(_controller.getLeftTriggerAxis());
@@ -41,6 +45,7 @@ public class IntakeControllerCommand extends CommandBase {
         } else {
             _intake.intakeMove(0);
         }
+        LoopProfiler.stop(EXECUTE_SECTION);
     }
 
     // Called once the command ends or is interrupted.
@@ -0,0 +1,32 @@
+package frc.robot.subsystems;
+
+/*
+    Hardware interface for the arm. The shoulder position comes from the absolute
+    encoder in degrees, the extension position is the raw string potentiometer value.
+*/
+public interface ArmIO {
+
+    double getAbsArmPosition();
+
+    double getExtensionPosition();
+
+    double getQuadPosition();
+
+    double getQuadRate();
+
+    /*
+        Shoulder motor output from -1 to 1.
+    */
+    void setShoulderOutput(double output);
+
+    /*
+        Extension motor output from -1 to 1.
+    */
+    void setExtensionOutput(double output);
+
+    /*
+        Advance the model by dtSeconds. Only simulated implementations do anything here.
+    */
+    default void updateSimulation(double dtSeconds) {
+    }
+}
@@ -0,0 +1,160 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMax.SoftLimitDirection;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import edu.wpi.first.wpilibj.AnalogInput;
+import edu.wpi.first.wpilibj.CounterBase;
+import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import edu.wpi.first.wpilibj.Encoder;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.Utility.CanStatusFrames;
+import frc.robot.Utility.DeviceConfigurator;
+
+/*
+    Arm hardware: Spark Max shoulder and extension motors, an absolute duty cycle
+    encoder and a quadrature encoder on the shoulder and a string potentiometer on the
+    extension.
+*/
+public class ArmIOReal implements ArmIO {
+
+    private final CANSparkMax extensionMotor;
+
+    private final CANSparkMax shoulderMotor;
+    private final SparkMaxPIDController shoulderPIDController;
+
+    private final Encoder arm_QuadEncoder;
+    private final DutyCycleEncoder arm_AbsEncoder;
+
+    private final AnalogInput extPot;
+
+    public ArmIOReal() {
+        extPot = new AnalogInput(0);
+
+        extensionMotor = new CANSparkMax(ArmConstants.extensionMotorId, MotorType.kBrushless);
+        shoulderMotor = new CANSparkMax(ArmConstants.shoulderMotorId, MotorType.kBrushless);
+
+        arm_QuadEncoder = new Encoder(1, 2, false, CounterBase.EncodingType.k4X);
+        /*
+        * Defines the number of samples to average when determining the rate.
+        * On a quadrature encoder, values range from 1-255;
+        * larger values result in smoother but potentially
+        * less accurate rates than lower values.
+        */
+        arm_QuadEncoder.setSamplesToAverage(5);
+        /*
+        * Defines how far the mechanism attached to the encoder moves per pulse. In
+        * this case, we assume that a 360 count encoder is directly
+        * attached to a 3 inch diameter (1.5inch radius) wheel,
+        * and that we want to measure distance in inches.
+        */
+        arm_QuadEncoder.setDistancePerPulse(1.0 / 360.0 * 2.0 * Math.PI * 1.5);
+        /*
+        * Defines the lowest rate at which the encoder will
+        * not be considered stopped, for the purposes of
+        * the GetStopped() method. Units are in distance / second,
+        * where distance refers to the units of distance
+        * that you are using, in this case inches.
+        */
+        arm_QuadEncoder.setMinRate(1.0);
+
+
+        // Initializes a duty cycle encoder on DIO pins 0
+        arm_AbsEncoder = new DutyCycleEncoder(0);
+        // Configures the encoder to return a distance of 4 for every rotation
+        arm_AbsEncoder.setDistancePerRotation(360.0);
+        
+        shoulderPIDController = extensionMotor.getPIDController();
+
+        // Configured on the DeviceConfigurator threads, alongside the other devices
+        DeviceConfigurator.submit("Arm extension", this::configureExtension);
+        DeviceConfigurator.submit("Arm shoulder", this::configureShoulder);
+    }
+
+    private void configureExtension() {
+        String name = "Arm extension";
+
+        // Reset and set up every boot, only flashed when the settings the Spark Max has
+        // now are not ours, see SwerveModuleIOReal
+        boolean stored = extensionMotor.getIdleMode() == IdleMode.kBrake
+            && !extensionMotor.getInverted()
+            && extensionMotor.getOpenLoopRampRate() == 0
+            && extensionMotor.getClosedLoopRampRate() == 0
+            && !extensionMotor.isFollower()
+            && !extensionMotor.isSoftLimitEnabled(SoftLimitDirection.kForward)
+            && !extensionMotor.isSoftLimitEnabled(SoftLimitDirection.kReverse)
+            && shoulderPIDController.getP() == 0
+            && shoulderPIDController.getI() == 0
+            && shoulderPIDController.getD() == 0
+            && shoulderPIDController.getFF() == 0;
+
+        // Factory reset, so we get the SPARKS MAX to a known state before configuring
+        // them. This is useful in case a SPARK MAX is swapped out.
+        DeviceConfigurator.rev(name, "restoreFactoryDefaults", extensionMotor::restoreFactoryDefaults);
+        DeviceConfigurator.rev(name, "P", () -> shoulderPIDController.setP(0.0));
+        DeviceConfigurator.rev(name, "I", () -> shoulderPIDController.setI(0.0));
+        DeviceConfigurator.rev(name, "D", () -> shoulderPIDController.setD(0.0));
+        DeviceConfigurator.rev(name, "idle mode", () -> extensionMotor.setIdleMode(IdleMode.kBrake));
+        // extensionMotor.setInverted(true);
+
+        // The current limit cannot be read back and the status frame periods are not kept
+        // in flash, so these are sent every boot
+        DeviceConfigurator.rev(name, "current limit", () -> extensionMotor.setSmartCurrentLimit(ArmConstants.extensionMotorCurrentLimit));
+        CanStatusFrames.configure(extensionMotor, CanStatusFrames.Device.ARM_EXTENSION);
+
+        if (stored) {
+            DeviceConfigurator.flashSkipped();
+        } else {
+            // Save the SPARK MAX configurations. If a SPARK MAX browns out during
+            // operation, it will maintain the above configurations.
+            DeviceConfigurator.rev(name, "burnFlash", extensionMotor::burnFlash);
+        }
+    }
+
+    private void configureShoulder() {
+        String name = "Arm shoulder";
+
+        // Not reset or flashed, the settings are sent every boot
+        // shoulderMotor.restoreFactoryDefaults();
+        CanStatusFrames.configure(shoulderMotor, CanStatusFrames.Device.ARM_SHOULDER);
+
+        DeviceConfigurator.rev(name, "idle mode", () -> shoulderMotor.setIdleMode(IdleMode.kBrake));
+        shoulderMotor.setInverted(true);
+        DeviceConfigurator.rev(name, "ramp rate", () -> shoulderMotor.setOpenLoopRampRate(.5));
+        //shoulderMotor.setSmartCurrentLimit(ArmConstants.kshoulderMotorCurrentLimit);
+        // shoulderMotor.burnFlash();
+    }
+
+    @Override
+    public double getAbsArmPosition() {
+        return arm_AbsEncoder.getDistance();
+    }
+
+    @Override
+    public double getExtensionPosition() {
+        return extPot.getValue();
+    }
+
+    @Override
+    public double getQuadPosition() {
+        return arm_QuadEncoder.getDistance();
+    }
+
+    @Override
+    public double getQuadRate() {
+        return arm_QuadEncoder.getRate();
+    }
+
+    @Override
+    public void setShoulderOutput(double output) {
+        shoulderMotor.set(output);
+    }
+
+    @Override
+    public void setExtensionOutput(double output) {
+        extensionMotor.set(output);
+    }
+}
@@ -0,0 +1,62 @@
+package frc.robot.subsystems;
+
+import frc.robot.Utility.LogReplaySource;
+
+/*
+    Arm that reports the positions recorded by Arm in a DataLogger file and keeps the
+    outputs it is given, so LogReplay can compare them with the recorded outputs. The
+    quadrature encoder is not logged and reads zero.
+*/
+public class ArmIOReplay implements ArmIO {
+
+    private final LogReplaySource source;
+    private final int shoulderPositionSignal;
+    private final int extensionPositionSignal;
+
+    private double shoulderOutput = 0.0;
+    private double extensionOutput = 0.0;
+
+    public ArmIOReplay(LogReplaySource source) {
+        this.source = source;
+        shoulderPositionSignal = source.require("Arm/Shoulder Position");
+        extensionPositionSignal = source.require("Arm/Extension Position");
+    }
+
+    @Override
+    public double getAbsArmPosition() {
+        return source.get(shoulderPositionSignal);
+    }
+
+    @Override
+    public double getExtensionPosition() {
+        return source.get(extensionPositionSignal);
+    }
+
+    @Override
+    public double getQuadPosition() {
+        return 0.0;
+    }
+
+    @Override
+    public double getQuadRate() {
+        return 0.0;
+    }
+
+    @Override
+    public void setShoulderOutput(double output) {
+        shoulderOutput = output;
+    }
+
+    public double getShoulderOutput() {
+        return shoulderOutput;
+    }
+
+    @Override
+    public void setExtensionOutput(double output) {
+        extensionOutput = output;
+    }
+
+    public double getExtensionOutput() {
+        return extensionOutput;
+    }
+}
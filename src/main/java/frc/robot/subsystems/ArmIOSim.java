@@ -0,0 +1,62 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants.ArmConstants;
+
+/*
+    Simple model of the arm for running the robot code off the robot. Both joints move
+    at a rate proportional to the motor output and stop at their limits.
+    A positive shoulder output raises the encoder reading and a negative extension
+    output raises the potentiometer reading, matching ArmPositionCommand.
+*/
+public class ArmIOSim implements ArmIO {
+
+    private static final double SHOULDER_DEGREES_PER_SECOND = 90.0;
+    private static final double EXTENSION_COUNTS_PER_SECOND = 600.0;
+
+    private double shoulderPosition = ArmConstants.armShoulderPosition;
+    private double extensionPosition = ArmConstants.extensionEncoderIn;
+    private double shoulderOutput = 0.0;
+    private double extensionOutput = 0.0;
+    private double shoulderRate = 0.0;
+
+    @Override
+    public double getAbsArmPosition() {
+        return shoulderPosition;
+    }
+
+    @Override
+    public double getExtensionPosition() {
+        return extensionPosition;
+    }
+
+    @Override
+    public double getQuadPosition() {
+        return shoulderPosition;
+    }
+
+    @Override
+    public double getQuadRate() {
+        return shoulderRate;
+    }
+
+    @Override
+    public void setShoulderOutput(double output) {
+        shoulderOutput = MathUtil.clamp(output, -1, 1);
+    }
+
+    @Override
+    public void setExtensionOutput(double output) {
+        extensionOutput = MathUtil.clamp(output, -1, 1);
+    }
+
+    @Override
+    public void updateSimulation(double dtSeconds) {
+        shoulderRate = shoulderOutput * SHOULDER_DEGREES_PER_SECOND;
+        shoulderPosition = MathUtil.clamp(shoulderPosition + shoulderRate * dtSeconds,
+            0.0, 360.0);
+        extensionPosition = MathUtil.clamp(
+            extensionPosition - extensionOutput * EXTENSION_COUNTS_PER_SECOND * dtSeconds,
+            ArmConstants.extensionEncoderIn - 100, ArmConstants.extensionEncoderOut + 100);
+    }
+}
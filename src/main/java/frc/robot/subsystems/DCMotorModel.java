@@ -0,0 +1,82 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+
+/*
+    DC motor driving a fixed inertia through a gearbox, used by the simulated IO.
+
+    The motor and load form a first order system, J dw/dt = G Kt (V - G w / Kv) / R, which
+    is integrated exactly for a constant voltage over each step. Unlike wpilib's
+    DCMotorSim this does no matrix work or allocation per step, so the simulated modules
+    can be sub-stepped at the 1ms Talon loop rate and still run far faster than real time.
+    Position and velocity are at the gearbox output in radians and radians per second.
+*/
+public class DCMotorModel {
+
+    private final DCMotor motor;
+    private final double gearing;
+    private final double a; // dw/dt = a * w + b * V
+    private final double b;
+
+    private double position = 0.0;
+    private double velocity = 0.0;
+
+    // Step constants cached for the last dt, the simulation normally uses a fixed step
+    private double cachedDt = Double.NaN;
+    private double decay;
+    private double decayIntegral;
+
+    public DCMotorModel(DCMotor motor, double gearing, double inertiaKgMetersSquared) {
+        this.motor = motor;
+        this.gearing = gearing;
+        this.a = -gearing * gearing * motor.KtNMPerAmp
+            / (motor.KvRadPerSecPerVolt * motor.rOhms * inertiaKgMetersSquared);
+        this.b = gearing * motor.KtNMPerAmp / (motor.rOhms * inertiaKgMetersSquared);
+    }
+
+    /*
+        Advance the model by dtSeconds with the motor driven at volts.
+    */
+    public void update(double volts, double dtSeconds) {
+        if (dtSeconds != cachedDt) {
+            cachedDt = dtSeconds;
+            decay = Math.exp(a * dtSeconds);
+            decayIntegral = (decay - 1.0) / a;
+        }
+        double steadyVelocity = -b * volts / a;
+        position += steadyVelocity * dtSeconds + (velocity - steadyVelocity) * decayIntegral;
+        velocity = steadyVelocity + (velocity - steadyVelocity) * decay;
+    }
+
+    /*
+        Advance the model by dtSeconds with the motor disconnected, friction slows the
+        load with the given time constant.
+    */
+    public void coast(double dtSeconds, double timeConstantSeconds) {
+        position += velocity * dtSeconds;
+        velocity *= Math.max(0.0, 1.0 - dtSeconds / timeConstantSeconds);
+    }
+
+    /*
+        Clamp a requested voltage so the motor current stays within currentLimitAmps at
+        the present speed, the way a smart current limit does.
+    */
+    public double limitVoltage(double volts, double currentLimitAmps) {
+        double backEmf = velocity * gearing / motor.KvRadPerSecPerVolt;
+        double maxDelta = currentLimitAmps * motor.rOhms;
+        return MathUtil.clamp(volts, backEmf - maxDelta, backEmf + maxDelta);
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public void setPosition(double position) {
+        this.position = position;
+    }
+}
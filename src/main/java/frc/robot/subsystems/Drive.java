@@ -1,19 +1,31 @@
 package frc.robot.subsystems;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Map;
 
 import com.revrobotics.CANSparkMax.IdleMode;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.Utility.ArcOdometry;
+import frc.robot.Utility.DataLogger;
+import frc.robot.Utility.LoopProfiler;
+import frc.robot.Utility.PoseHistory;
+import frc.robot.Utility.SwerveMath;
+import frc.robot.Utility.SwerveSetpointGenerator;
+import frc.robot.Utility.Telemetry;
 import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
@@ -30,6 +42,44 @@ public class Drive extends SubsystemBase {
 
 	private static Drive instance;
 
+	private static final int PERIODIC_SECTION = LoopProfiler.register("Drive.periodic", 2.0);
+
+	// Dashboard values, flushed once per loop by Telemetry
+	private static final Telemetry.NumberSignal angleLFSignal = Telemetry.addNumber("angleLF", Telemetry.NORMAL);
+	private static final Telemetry.NumberSignal angleLBSignal = Telemetry.addNumber("angleLB", Telemetry.NORMAL);
+	private static final Telemetry.NumberSignal angleRFSignal = Telemetry.addNumber("angleRF", Telemetry.NORMAL);
+	private static final Telemetry.NumberSignal angleRBSignal = Telemetry.addNumber("angleRB", Telemetry.NORMAL);
+	private static final Telemetry.NumberSignal speedLFSignal = Telemetry.addNumber("speedLF", Telemetry.NORMAL);
+	private static final Telemetry.NumberSignal curAngleFLSignal = Telemetry.addNumber("CurAngle FL", Telemetry.NORMAL);
+	private static final Telemetry.NumberSignal headingSignal = Telemetry.addNumber("Robot Heading", Telemetry.NORMAL);
+
+	// Logged every loop by DataLogger, module signals in FL, BL, FR, BR order
+	private static final String[] MODULE_NAMES = { "FL", "BL", "FR", "BR" };
+	private static final int[] steerPositionLog = addModuleLogs("Steer Position");
+	private static final int[] drivePositionLog = addModuleLogs("Drive Position");
+	private static final int[] speedLog = addModuleLogs("Speed");
+	private static final int[] angleLog = addModuleLogs("Angle");
+	private static final int POSE_X_LOG = DataLogger.addDouble("Drive/Pose X");
+	private static final int POSE_Y_LOG = DataLogger.addDouble("Drive/Pose Y");
+	private static final int POSE_HEADING_LOG = DataLogger.addDouble("Drive/Pose Heading");
+	private static final int[] setAngleLog = addModuleLogs("Set Angle");
+	private static final int VISION_X_LOG = DataLogger.addDouble("Drive/Vision X");
+	private static final int VISION_Y_LOG = DataLogger.addDouble("Drive/Vision Y");
+	private static final int VISION_ACCEPTED_LOG = DataLogger.addBoolean("Drive/Vision Accepted");
+	private static final Telemetry.NumberSignal visionAcceptedSignal = Telemetry.addNumber("Vision Accepted", Telemetry.SLOW);
+	private static final Telemetry.NumberSignal visionRejectedSignal = Telemetry.addNumber("Vision Rejected", Telemetry.SLOW);
+	private static final int[] moduleSlippingLog = addModuleBooleanLogs("Slipping");
+	private static final int SLIPPING_LOG = DataLogger.addBoolean("Drive/Slipping");
+	private static final int COLLISION_LOG = DataLogger.addBoolean("Drive/Collision");
+	private static final int WHEEL_YAW_RATE_LOG = DataLogger.addDouble("Drive/Wheel Yaw Rate");
+	private static final Telemetry.NumberSignal moduleSlipSignal = Telemetry.addNumber("Module Slips", Telemetry.SLOW);
+	private static final Telemetry.NumberSignal wheelSlipSignal = Telemetry.addNumber("Wheel Slips", Telemetry.SLOW);
+	private static final Telemetry.NumberSignal collisionSignal = Telemetry.addNumber("Collisions", Telemetry.SLOW);
+	// Odometry index of each module in log order
+	private static final int[] ODOMETRY_INDEX = { 0, 2, 1, 3 };
+	private static final double GRAVITY = 9.80665; // meters per second squared per g
+	private static final int SETPOINT_FRACTION_LOG = DataLogger.addDouble("Drive/Setpoint Fraction");
+
 	public static final double kMaxSpeed = 3.0; // 3 meters per second
 	public static final double kMaxAngularSpeed = Math.PI; // 1/2 rotation per second
 
@@ -41,8 +91,8 @@ public class Drive extends SubsystemBase {
 	public double heading;
 	public double angle;
 
-	private static final double WHEEL_BASE_LENGTH = 23.5;//24;
-	private static final double WHEEL_BASE_WIDTH = 21.5;//22;
+	public static final double WHEEL_BASE_LENGTH = 23.5;//24;
+	public static final double WHEEL_BASE_WIDTH = 21.5;//22;
 
 	// private static final double WHEEL_DIAMETER = 4.0;
 	// TO DO: Correct equation that uses MAX_SPEED
@@ -51,8 +101,8 @@ public class Drive extends SubsystemBase {
 
 	public static final double OMEGA_SCALE = 1.0 / 30.0;
 
-	private final boolean invertDrive = false;//true;
-	private final boolean invertSteer = true;
+	private static final boolean invertDrive = false;//true;
+	private static final boolean invertSteer = true;
 	private NavXGyro _gyro;
 	private boolean _driveCorrect;
 
@@ -74,7 +124,91 @@ public class Drive extends SubsystemBase {
 			.withWidget(BuiltInWidgets.kNumberSlider).withProperties(Map.of("min", -180, "max", 180, "center", 0))
 			.withPosition(4, 2).withSize(3, 1).getEntry();
 
-	private final SwerveDriveOdometry odometer;
+	/*
+	 * Odometry is updated on its own Notifier thread at kOdometryPeriodSeconds,
+	 * once startOdometryThread() is called, by ArcOdometry, which integrates each
+	 * update along an arc in substeps. The odometry state is only touched while
+	 * holding odometryLock. Each update
+	 * publishes the new immutable Pose2d through a volatile field, so getPose()
+	 * never blocks the main loop waiting on the odometry thread.
+	 *
+	 * The pose is the odometry pose moved by a correction (fieldOffset), which is
+	 * where vision comes in. odometryHistory keeps the odometry poses over the
+	 * last kPoseHistorySeconds. A vision measurement is compared against where we
+	 * were when the camera took it, the pose at that time is pulled toward it and
+	 * the correction is worked out again from that. That carries the correction
+	 * forward over all the odometry since, the same as replaying it would.
+	 */
+	private final ArcOdometry odometry;
+	private final Object odometryLock = new Object();
+	private final Notifier odometryNotifier;
+	private volatile Pose2d poseSnapshot;
+	private volatile double poseTimestamp;
+	private final PoseHistory odometryHistory = new PoseHistory(
+			(int) Math.ceil(VisionConstants.kPoseHistorySeconds / DriveConstants.kOdometryPeriodSeconds) + 1);
+	private double fieldOffsetX = 0;
+	private double fieldOffsetY = 0;
+	private double fieldOffsetHeading = 0;
+	private final double[] pastPose = new double[3];
+	private final double[] moduleDistances = new double[SwerveMath.MODULE_COUNT];
+	private final double[] moduleAnglesRadians = new double[SwerveMath.MODULE_COUNT];
+	private int visionAccepted = 0;
+	private int visionRejected = 0;
+	private int visionRejectedInARow = 0;
+
+	/*
+	 * Wheel slip and collision checks. ArcOdometry flags a module that disagrees
+	 * with the others over a loop's odometry updates, which catches one wheel
+	 * slipping at a time, and with kSlipDropModules leaves it out of the odometry.
+	 * checkTraction() runs once per loop and compares the chassis motion
+	 * from the module states with the navX, which catches the wheels spinning or
+	 * sliding together and the robot being hit. Either of those means odometry
+	 * has gone wrong, so the next vision measurement is taken without the gate.
+	 * The wheel velocity is differentiated in the field frame, and since the navX
+	 * axes may not line up with the robot, only the size of the accelerations is
+	 * compared.
+	 */
+	private final SwerveModule[] odometryModules;
+	private final double[] moduleX;
+	private final double[] moduleY;
+	private volatile int slippingModules = 0; // Bit per module in odometry order
+	private volatile int moduleSlips = 0;
+	private double lastTractionTimestamp = 0;
+	private double lastWheelVx = 0;
+	private double lastWheelVy = 0;
+	private double wheelAccelX = 0;
+	private double wheelAccelY = 0;
+	private double gyroAccelX = 0;
+	private double gyroAccelY = 0;
+	private double lastRawGyroAccelX = 0;
+	private double lastRawGyroAccelY = 0;
+	private boolean slipping = false;
+	private boolean colliding = false;
+	private int wheelSlips = 0;
+	private int collisions = 0;
+
+	// Where the simulated robot really is, for the simulated camera
+	private Pose2d simulatedPose = new Pose2d();
+
+	/*
+	 * Every drive request, from processInput() or setModuleStates(), goes through
+	 * the setpoint generator so the modules are never asked to accelerate or steer
+	 * faster than they can. Setpoints are in SwerveMath module order, speeds in
+	 * meters per second and angles in radians.
+	 */
+	private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(SwerveMath.MODULE_COUNT,
+			DriveConstants.kSetpointMaxAccelMetersPerSecondSquared,
+			DriveConstants.kSetpointMaxSteerRateRadiansPerSecond, DriveConstants.kSetpointStoppedMetersPerSecond);
+	private final double[] setpointSpeeds = new double[SwerveMath.MODULE_COUNT];
+	private final double[] setpointAngles = new double[SwerveMath.MODULE_COUNT];
+	private final double[] measuredSpeeds = new double[SwerveMath.MODULE_COUNT];
+	private final double[] measuredAngles = new double[SwerveMath.MODULE_COUNT];
+	private double lastSetpointTimestamp = 0;
+
+	// Preallocated buffers so the drive loop does not create garbage every cycle
+	private final double[] moduleSpeeds = new double[SwerveMath.MODULE_COUNT];
+	private final double[] moduleAngles = new double[SwerveMath.MODULE_COUNT];
+	private final SwerveModulePosition[] modulePositions = new SwerveModulePosition[SwerveMath.MODULE_COUNT];
 
 	/*
 	 * Set up the drive by passing in the gyro and then configuring the individual
@@ -82,89 +216,305 @@ public class Drive extends SubsystemBase {
 	 * Note the order that the modules are in. Be consistant with the order in the
 	 * odometry.
 	 */
-	private Drive(NavXGyro gyro) {
+	private Drive(NavXGyro gyro, SwerveModuleIO frontLeftIO, SwerveModuleIO backLeftIO,
+			SwerveModuleIO frontRightIO, SwerveModuleIO backRightIO) {
 
 		this._gyro = gyro;
 
-		frontLeft = new SwerveModule(DriveConstants.FrontLeftSteer, DriveConstants.FrontLeftDrive, invertDrive,
-				invertSteer);
+		frontLeft = new SwerveModule("FL", frontLeftIO);
 
-		backLeft = new SwerveModule(DriveConstants.BackLeftSteer, DriveConstants.BackLeftDrive, invertDrive,
-				invertSteer);
+		backLeft = new SwerveModule("BL", backLeftIO);
 
-		frontRight = new SwerveModule(DriveConstants.FrontRightSteer, DriveConstants.FrontRightDrive, invertDrive,
-				invertSteer);
+		frontRight = new SwerveModule("FR", frontRightIO);
 
-		backRight = new SwerveModule(DriveConstants.BackRightSteer, DriveConstants.BackRightDrive, invertDrive,
-				invertSteer);
+		backRight = new SwerveModule("BR", backRightIO);
 
-		odometer = new SwerveDriveOdometry(DriveConstants.FrameConstants.kDriveKinematics,
-		this._gyro.getNavXRotation2D(), getPositions());
+		// Module positions in odometry order, the same as kDriveKinematics
+		odometryModules = new SwerveModule[] { frontLeft, frontRight, backLeft, backRight };
+		double halfBase = DriveConstants.FrameConstants.kWheelBase / 2;
+		double halfTrack = DriveConstants.FrameConstants.kTrackWidth / 2;
+		moduleX = new double[] { halfBase, halfBase, -halfBase, -halfBase };
+		moduleY = new double[] { halfTrack, -halfTrack, halfTrack, -halfTrack };
+		int slipCheckUpdates = DriveConstants.kSlipCheckUpdates;
+		odometry = new ArcOdometry(moduleX, moduleY, DriveConstants.kOdometrySubsteps, slipCheckUpdates,
+				DriveConstants.kSlipToleranceMeters, DriveConstants.kSlipToleranceRatio,
+				DriveConstants.kSlipSkewSeconds / (slipCheckUpdates * DriveConstants.kOdometryPeriodSeconds),
+				DriveConstants.kSlipDropModules);
+		poseSnapshot = new Pose2d();
+		poseTimestamp = Timer.getFPGATimestamp();
 
+		// Not started until the motor controllers are configured, see startOdometryThread()
+		odometryNotifier = new Notifier(this::updateOdometry);
+		odometryNotifier.setName("Odometry");
 	}
 
 	// Public Methods
 
 	public Pose2d getPose() {
-		return odometer.getPoseMeters();
+		return poseSnapshot;
+	}
+
+	/*
+	 * FPGA timestamp in seconds of the samples used for the current getPose() value.
+	 */
+	public double getPoseTimestamp() {
+		return poseTimestamp;
+	}
+
+	/*
+	 * Where the robot was at timestampSeconds (FPGA time), interpolated between
+	 * odometry updates, or null if that is further back than kPoseHistorySeconds.
+	 */
+	public Pose2d getPoseAt(double timestampSeconds) {
+		synchronized (odometryLock) {
+			if (!odometryHistory.sample(timestampSeconds, pastPose)) {
+				return null;
+			}
+			toField(pastPose);
+			return new Pose2d(pastPose[PoseHistory.X], pastPose[PoseHistory.Y],
+					new Rotation2d(pastPose[PoseHistory.HEADING]));
+		}
 	}
 
 	public void resetOdometry(Pose2d pose) {
-		odometer.resetPosition(this._gyro.getRotation2d(), getPositions(), pose);
+		synchronized (odometryLock) {
+			samplePositions();
+			odometry.reset(pose.getX(), pose.getY(), pose.getRotation().getRadians(),
+					this._gyro.sampleRotation2d().getRadians(), moduleDistances, moduleAnglesRadians);
+			fieldOffsetX = 0;
+			fieldOffsetY = 0;
+			fieldOffsetHeading = 0;
+			odometryHistory.clear();
+			poseSnapshot = pose;
+			visionRejectedInARow = 0;
+		}
+		if (RobotBase.isSimulation()) {
+			simulatedPose = pose;
+		}
+	}
+
+	/*
+	 * Start the odometry Notifier from wherever the sensors read now. Robot calls
+	 * this once DeviceConfigurator is done, so the odometry thread does not read
+	 * the motor controllers while they are still being configured. Until it is
+	 * started updateOdometry() must be called by hand, which the log replay does
+	 * once per recorded loop so the pose does not depend on thread timing.
+	 */
+	public void startOdometryThread() {
+		synchronized (odometryLock) {
+			samplePositions();
+			odometry.reset(odometry.getX(), odometry.getY(), odometry.getHeading(),
+					this._gyro.sampleRotation2d().getRadians(), moduleDistances, moduleAnglesRadians);
+		}
+		odometryNotifier.startPeriodic(DriveConstants.kOdometryPeriodSeconds);
+	}
+
+	/*
+	 * Sample the gyro and module positions and integrate the pose. Runs on the
+	 * odometry Notifier thread.
+	 */
+	public void updateOdometry() {
+		synchronized (odometryLock) {
+			double timestamp = Timer.getFPGATimestamp();
+			samplePositions();
+			odometry.update(this._gyro.sampleRotation2d().getRadians(), moduleDistances, moduleAnglesRadians);
+			odometryHistory.add(timestamp, odometry.getX(), odometry.getY(), odometry.getHeading());
+			publishPose();
+			poseTimestamp = timestamp;
+
+			int slipBits = 0;
+			for (int i = 0; i < SwerveMath.MODULE_COUNT; i++) {
+				if (odometry.isModuleSlipping(i)) {
+					slipBits |= 1 << i;
+				}
+			}
+			// Count each module when it starts slipping, not every update it slips for
+			moduleSlips += Integer.bitCount(slipBits & ~slippingModules);
+			slippingModules = slipBits;
+		}
+	}
+
+	/*
+	 * Module distances and angles in odometry order into the sample arrays.
+	 */
+	private void samplePositions() {
+		SwerveModulePosition[] positions = getPositions();
+		for (int i = 0; i < positions.length; i++) {
+			moduleDistances[i] = positions[i].distanceMeters;
+			moduleAnglesRadians[i] = positions[i].angle.getRadians();
+		}
+	}
+
+	/*
+	 * Move an odometry pose (x, y, heading) into the field by the vision correction.
+	 */
+	private void toField(double[] pose) {
+		double cos = Math.cos(fieldOffsetHeading);
+		double sin = Math.sin(fieldOffsetHeading);
+		double x = pose[PoseHistory.X];
+		double y = pose[PoseHistory.Y];
+		pose[PoseHistory.X] = fieldOffsetX + x * cos - y * sin;
+		pose[PoseHistory.Y] = fieldOffsetY + x * sin + y * cos;
+		pose[PoseHistory.HEADING] = MathUtil.angleModulus(pose[PoseHistory.HEADING] + fieldOffsetHeading);
+	}
+
+	private void publishPose() {
+		pastPose[PoseHistory.X] = odometry.getX();
+		pastPose[PoseHistory.Y] = odometry.getY();
+		pastPose[PoseHistory.HEADING] = odometry.getHeading();
+		toField(pastPose);
+		poseSnapshot = new Pose2d(pastPose[PoseHistory.X], pastPose[PoseHistory.Y],
+				new Rotation2d(pastPose[PoseHistory.HEADING]));
+	}
+
+	/*
+	 * Fuse a vision pose taken at timestampSeconds (FPGA time) into the pose
+	 * estimate, with xyStdDev and headingStdDev its standard deviations.
+	 * Measurements that disagree with where we were at that time by more than
+	 * kVisionMaxErrorMeters or kVisionMaxErrorDegrees are thrown away, unless
+	 * kVisionMaxRejectionsInARow have been, at which point odometry is more likely
+	 * to be the one that is wrong. Returns whether the measurement was used.
+	 */
+	public boolean addVisionMeasurement(double x, double y, double headingRadians, double timestampSeconds,
+			double xyStdDev, double headingStdDev) {
+		boolean accepted;
+		synchronized (odometryLock) {
+			if (!odometryHistory.sample(timestampSeconds, pastPose)) {
+				// Older than the history, nothing to compare it with
+				accepted = false;
+			} else {
+				double odometryX = pastPose[PoseHistory.X];
+				double odometryY = pastPose[PoseHistory.Y];
+				double odometryHeading = pastPose[PoseHistory.HEADING];
+				toField(pastPose);
+				double errorX = x - pastPose[PoseHistory.X];
+				double errorY = y - pastPose[PoseHistory.Y];
+				double errorHeading = MathUtil.angleModulus(headingRadians - pastPose[PoseHistory.HEADING]);
+				boolean consistent = Math.hypot(errorX, errorY) <= VisionConstants.kVisionMaxErrorMeters
+						&& Math.abs(Math.toDegrees(errorHeading)) <= VisionConstants.kVisionMaxErrorDegrees;
+				accepted = consistent || visionRejectedInARow >= VisionConstants.kVisionMaxRejectionsInARow;
+
+				if (accepted) {
+					// Same gain as the wpilib pose estimator, q / (q + r) for each axis
+					double xyGain = VisionConstants.kStateStdDevMeters
+							/ (VisionConstants.kStateStdDevMeters + xyStdDev);
+					double headingGain = VisionConstants.kStateStdDevRadians
+							/ (VisionConstants.kStateStdDevRadians + headingStdDev);
+					double correctedX = pastPose[PoseHistory.X] + errorX * xyGain;
+					double correctedY = pastPose[PoseHistory.Y] + errorY * xyGain;
+					double correctedHeading = pastPose[PoseHistory.HEADING] + errorHeading * headingGain;
+
+					// The correction that takes the odometry pose then to the corrected one
+					fieldOffsetHeading = MathUtil.angleModulus(correctedHeading - odometryHeading);
+					double cos = Math.cos(fieldOffsetHeading);
+					double sin = Math.sin(fieldOffsetHeading);
+					fieldOffsetX = correctedX - (odometryX * cos - odometryY * sin);
+					fieldOffsetY = correctedY - (odometryX * sin + odometryY * cos);
+					publishPose();
+				}
+			}
+			if (accepted) {
+				visionRejectedInARow = 0;
+				visionAccepted++;
+			} else {
+				visionRejectedInARow++;
+				visionRejected++;
+			}
+		}
+		DataLogger.set(VISION_X_LOG, x);
+		DataLogger.set(VISION_Y_LOG, y);
+		DataLogger.setBoolean(VISION_ACCEPTED_LOG, accepted);
+		visionAcceptedSignal.set(visionAccepted);
+		visionRejectedSignal.set(visionRejected);
+		return accepted;
+	}
+
+	/*
+	 * Where the simulated robot really is. Integrated from the simulated modules
+	 * without any of the vision corrections, so the simulated camera sees
+	 * the field from the right place.
+	 */
+	public Pose2d getSimulatedPose() {
+		return simulatedPose;
 	}
 
 	public void resetOdometryForState(PathPlannerState state) {
 		state = PathPlannerTrajectory.transformStateForAlliance(state, DriverStation.getAlliance());
 		Pose2d pose = new Pose2d(state.poseMeters.getTranslation(), state.holonomicRotation);
-		odometer.resetPosition(this._gyro.getRotation2d(), getPositions(), pose);
+		resetOdometry(pose);
 	  }
 
+	/*
+	 * Create the drive with the real swerve modules on the robot and simulated
+	 * ones everywhere else.
+	 */
 	public static Drive getInstance(NavXGyro gyro) {
 		if (instance == null) {
-			instance = new Drive(gyro);
+			instance = new Drive(gyro,
+					createModuleIO(DriveConstants.FrontLeftSteer, DriveConstants.FrontLeftDrive),
+					createModuleIO(DriveConstants.BackLeftSteer, DriveConstants.BackLeftDrive),
+					createModuleIO(DriveConstants.FrontRightSteer, DriveConstants.FrontRightDrive),
+					createModuleIO(DriveConstants.BackRightSteer, DriveConstants.BackRightDrive));
 		}
 		return instance;
 	}
 
-	public void processInput(double forward, double strafe, double omega, boolean deadStick, boolean driveCorrect) {
-
-		this._driveCorrect = driveCorrect;
-		double omegaL2 = omega * (WHEEL_BASE_LENGTH / 2.0);
-		double omegaW2 = omega * (WHEEL_BASE_WIDTH / 2.0);
-
-		// SmartDashboard.putNumber("OmegaL2", omegaL2)
-		// SmartDashboard.putNumber("OmegaW2", omegaW2);
-		// SmartDashboard.putNumber("Forward", forward);
-		// SmartDashboard.putNumber("Strafe", strafe);
+	/*
+	 * Create the drive with specific module IO, for running the drive code off the
+	 * robot. Must be called before anything else calls getInstance.
+	 */
+	public static Drive getInstance(NavXGyro gyro, SwerveModuleIO frontLeftIO, SwerveModuleIO backLeftIO,
+			SwerveModuleIO frontRightIO, SwerveModuleIO backRightIO) {
+		if (instance == null) {
+			instance = new Drive(gyro, frontLeftIO, backLeftIO, frontRightIO, backRightIO);
+		}
+		return instance;
+	}
 
-		// Compute the constants used later for calculating speeds and angles
-		double A = strafe - omegaL2;
-		double B = strafe + omegaL2;
-		double C = forward - omegaW2;
-		double D = forward + omegaW2;
+	private static SwerveModuleIO createModuleIO(int steerNum, int driveNum) {
+		if (RobotBase.isReal()) {
+			return new SwerveModuleIOReal(steerNum, driveNum, invertDrive, invertSteer);
+		}
+		return new SwerveModuleIOSim();
+	}
 
-		/*
-		 * Compute the drive motor speeds
-		 * Original speed calculation based on forward being positive Y axis and right
-		 * being positve X
-		 * and positive rotation being clockwise .
-		 */
-		// double speedFL = speed(B, D);
-		// double speedBL = speed(A, D);
-		// double speedFR = speed(B, C);
-		// double speedBR = speed(A, C);
+	public void processInput(double forward, double strafe, double omega, boolean deadStick, boolean driveCorrect) {
 
+		this._driveCorrect = driveCorrect;
 		/*
-		 * Compute the drive motor speeds
-		 * Constant values re-arranged to invert direction of drive controls
+		 * Compute the drive motor speeds and steer angles into the preallocated
+		 * module buffers.
+		 * Constant values are arranged to invert direction of drive controls
 		 * to work with inverted wpilib paths.
 		 * Positive Y is now left. Positive X is forward. Positive rotation is
 		 * counter-clockwise.
 		 */
-		double speedFL = speed(B, C);
-		double speedBL = speed(A, C);
-		double speedFR = speed(B, D);
-		double speedBR = speed(A, D);
+		SwerveMath.inverseKinematics(forward, strafe, omega, WHEEL_BASE_LENGTH, WHEEL_BASE_WIDTH,
+				moduleSpeeds, moduleAngles);
+
+		/*
+		 * Compute the maximum speed so that we can scale all the speeds to the range
+		 * [0.0, 1.0], then limit the change from the last setpoint. The generator
+		 * works in meters per second, a dead stick asks it to stop.
+		 */
+		double maxSpeed = SwerveMath.maxSpeed(moduleSpeeds);
+		double fullSpeed = DriveConstants.FrameConstants.kPhysicalMaxSpeedMetersPerSecond;
+		for (int i = 0; i < SwerveMath.MODULE_COUNT; i++) {
+			setpointSpeeds[i] = deadStick ? 0.0 : moduleSpeeds[i] / maxSpeed * fullSpeed;
+			setpointAngles[i] = Math.toRadians(moduleAngles[i]);
+		}
+		limitSetpoints();
+		boolean stopped = true;
+		for (int i = 0; i < SwerveMath.MODULE_COUNT; i++) {
+			moduleSpeeds[i] = setpointSpeeds[i] / fullSpeed;
+			moduleAngles[i] = Math.toDegrees(setpointAngles[i]);
+			stopped &= setpointSpeeds[i] == 0.0;
+		}
+
+		double speedFL = moduleSpeeds[SwerveMath.FRONT_LEFT];
+		double speedBL = moduleSpeeds[SwerveMath.BACK_LEFT];
+		double speedFR = moduleSpeeds[SwerveMath.FRONT_RIGHT];
+		double speedBR = moduleSpeeds[SwerveMath.BACK_RIGHT];
 
 		/*
 		 * ... and angles for the steering motors Set the drive to face straight ahead
@@ -184,6 +534,10 @@ public class Drive extends SubsystemBase {
 		double lbOffset = lbSetAngle.getDouble(0.0);
 		double rfOffset = rfSetAngle.getDouble(0.0);
 		double rbOffset = rbSetAngle.getDouble(0.0);
+		DataLogger.set(setAngleLog[0], lfOffset);
+		DataLogger.set(setAngleLog[1], lbOffset);
+		DataLogger.set(setAngleLog[2], rfOffset);
+		DataLogger.set(setAngleLog[3], rbOffset);
 
 		/*
 		 * When drives are mechanically calibrated for zero position on encoders they
@@ -206,36 +560,18 @@ public class Drive extends SubsystemBase {
 
 		/*
 		 * Compute the steer motor positions
-		 * Original position calculation based on forward being positive Y axis and
-		 * right being positve X
-		 * and positive rotation being clockwise .
+		 * Original position calculation was based on forward being positive Y axis and
+		 * right being positve X and positive rotation being clockwise. The angles in
+		 * moduleAngles use the re-arranged wpilib directions.
 		 */
-		// double angleFL = angle(B, D) + Constants.FL_STEER_OFFSET + lfOffset;
-		// double angleBL = angle(A, D) + Constants.BL_STEER_OFFSET + lbOffset;
-		// double angleFR = angle(B, C) + Constants.FR_STEER_OFFSET + rfOffset;
-		// double angleBR = angle(A, C) + Constants.BR_STEER_OFFSET + rbOffset;
-
-		/*
-		 * Compute the steer motor positions
-		 * Constant values re-arranged to invert direction of steer motor controls
-		 * to work with inverted wpilib paths.
-		 * Positive Y is now left. Positive X is forward. Positive rotation is
-		 * counter-clockwise.
-		 */
-		double angleFL = angle(B, C) + lfOffset + DriveConstants.FrontLeftEncoderOffset;//+ lfOffset;
-		double angleBL = angle(A, C) + lbOffset + DriveConstants.BackLeftEncoderOffset;// + lbOffset;
-		double angleFR = angle(B, D) + rfOffset + DriveConstants.FrontRightEncoderOffset;// + rfOffset;
-		double angleBR = angle(A, D) + rbOffset + DriveConstants.BackRightEncoderOffset;// + rbOffset;
-
-		/*
-		 * Compute the maximum speed so that we can scale all the speeds to the range
-		 * [0.0, 1.0]
-		 */
-		double maxSpeed = Collections.max(Arrays.asList(speedFL, speedBL, speedFR, speedBR, 1.0));
-
-		SmartDashboard.putNumber("angleLF", angleFL);
-		SmartDashboard.putNumber("speedLF", speedFL);
-		SmartDashboard.putNumber("CurAngle FL", frontLeft.getSteerEncDeg());
+		double angleFL = moduleAngles[SwerveMath.FRONT_LEFT] + lfOffset + DriveConstants.FrontLeftEncoderOffset;
+		double angleBL = moduleAngles[SwerveMath.BACK_LEFT] + lbOffset + DriveConstants.BackLeftEncoderOffset;
+		double angleFR = moduleAngles[SwerveMath.FRONT_RIGHT] + rfOffset + DriveConstants.FrontRightEncoderOffset;
+		double angleBR = moduleAngles[SwerveMath.BACK_RIGHT] + rbOffset + DriveConstants.BackRightEncoderOffset;
+
+		angleLFSignal.set(angleFL);
+		speedLFSignal.set(speedFL);
+		curAngleFLSignal.set(frontLeft.getSteerEncDeg());
 		// SmartDashboard.putNumber("angleRF", angleFR);
 		// SmartDashboard.putNumber("speedRF", speedFR);
 		// SmartDashboard.putNumber("CurAngle FR", frontRight.getSteerEncDeg());
@@ -247,7 +583,8 @@ public class Drive extends SubsystemBase {
 		// SmartDashboard.putNumber("CurAngle BR", backRight.getSteerEncDeg());
 		// SmartDashboard.putNumber("SpeedLF/MaxSpeed", speedFL / maxSpeed);
 
-		if (deadStick) {
+		// Keep steering while the generator slows the modules down, hold once stopped
+		if (deadStick && stopped) {
 
 			// frontLeft.setSteerSpeed(0);
 			frontLeft.setDriveSpeed(0);
@@ -261,12 +598,12 @@ public class Drive extends SubsystemBase {
 		} else {
 
 			/*
-			 * Set each swerve module, scaling the drive speeds by the maximum speed
+			 * Set each swerve module, the drive speeds are already scaled
 			 */
-			frontLeft.setSwerve(angleFL, speedFL / maxSpeed, this._driveCorrect);
-			backLeft.setSwerve(angleBL, speedBL / maxSpeed, this._driveCorrect);
-			frontRight.setSwerve(angleFR, speedFR / maxSpeed, this._driveCorrect);
-			backRight.setSwerve(angleBR, speedBR / maxSpeed, this._driveCorrect);
+			frontLeft.setSwerve(angleFL, speedFL, this._driveCorrect);
+			backLeft.setSwerve(angleBL, speedBL, this._driveCorrect);
+			frontRight.setSwerve(angleFR, speedFR, this._driveCorrect);
+			backRight.setSwerve(angleBR, speedBR, this._driveCorrect);
 		}
 		// this.FL_Drive.setAngleAndSpeed(angleLF, speedLF / maxSpeed);
 		// this.BL_Drive.setAngleAndSpeed(angleLR, speedLR / maxSpeed);
@@ -275,14 +612,6 @@ public class Drive extends SubsystemBase {
 		getSteerEncoderVal();
 	}
 
-	private double speed(double val1, double val2) {
-		return Math.hypot(val1, val2);
-	}
-
-	private double angle(double val1, double val2) {
-		return Math.toDegrees(Math.atan2(val1, val2));
-	}
-
 	public double[] getDriveEncoders() {
 		double[] values = new double[] {
 				frontLeft.getDriveEncoder(),
@@ -309,35 +638,186 @@ public class Drive extends SubsystemBase {
 		backRight.setDriveEncoder(position);
 	}
 
+	/*
+	 * Sample every module sensor once for this loop.
+	 */
+	public void refreshSensors() {
+		frontLeft.refreshSensors();
+		backLeft.refreshSensors();
+		frontRight.refreshSensors();
+		backRight.refreshSensors();
+	}
+
 	public void getSteerEncoderVal() {
-		SmartDashboard.putNumber("angleLF", frontLeft.getSteerEncoder());
-		SmartDashboard.putNumber("angleLB", backLeft.getSteerEncoder());
-		SmartDashboard.putNumber("angleRF", frontRight.getSteerEncoder());
-		SmartDashboard.putNumber("angleRB", backRight.getSteerEncoder());
+		angleLFSignal.set(frontLeft.getSteerEncoder());
+		angleLBSignal.set(backLeft.getSteerEncoder());
+		angleRFSignal.set(frontRight.getSteerEncoder());
+		angleRBSignal.set(backRight.getSteerEncoder());
+	}
+
+	/*
+	 * Compare the module states with the navX, see the comment on odometryModules.
+	 * Reads the per loop samples, so runs after refreshSensors().
+	 */
+	private void checkTraction() {
+		// Chassis speed from the modules. The layout is symmetric, so the rotation
+		// cancels out of the mean and the turn rate is the sum of r x v over sum of r^2.
+		double vx = 0;
+		double vy = 0;
+		double moment = 0;
+		double radiusSquared = 0;
+		for (int i = 0; i < SwerveMath.MODULE_COUNT; i++) {
+			SwerveModuleState state = odometryModules[i].getState();
+			double moduleVx = state.speedMetersPerSecond * state.angle.getCos();
+			double moduleVy = state.speedMetersPerSecond * state.angle.getSin();
+			vx += moduleVx;
+			vy += moduleVy;
+			moment += moduleX[i] * moduleVy - moduleY[i] * moduleVx;
+			radiusSquared += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+		}
+		vx /= SwerveMath.MODULE_COUNT;
+		vy /= SwerveMath.MODULE_COUNT;
+		double wheelYawRate = moment / radiusSquared;
+
+		// Into the field frame before differentiating. The robot frame turns with the
+		// robot, so its velocity changes by omega x v even at a steady speed.
+		double heading = Math.toRadians(this._gyro.getHeading());
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		double fieldVx = vx * cos - vy * sin;
+		double fieldVy = vx * sin + vy * cos;
+
+		double timestamp = this._gyro.getSampleTimestamp();
+		double dt = timestamp - lastTractionTimestamp;
+		double rawGyroAccelX = this._gyro.getAccelX() * GRAVITY;
+		double rawGyroAccelY = this._gyro.getAccelY() * GRAVITY;
+		boolean nowSlipping = false;
+		boolean nowColliding = false;
+		if (lastTractionTimestamp > 0 && dt > 0) {
+			// Filter both the same way so the comparison is not thrown by noise
+			double gain = DriveConstants.kSlipAccelFilterGain;
+			wheelAccelX += ((fieldVx - lastWheelVx) / dt - wheelAccelX) * gain;
+			wheelAccelY += ((fieldVy - lastWheelVy) / dt - wheelAccelY) * gain;
+			gyroAccelX += (rawGyroAccelX - gyroAccelX) * gain;
+			gyroAccelY += (rawGyroAccelY - gyroAccelY) * gain;
+
+			double accelError = Math.abs(Math.hypot(wheelAccelX, wheelAccelY) - Math.hypot(gyroAccelX, gyroAccelY));
+			double yawRateError = Math.abs(wheelYawRate - this._gyro.getYawRate());
+			nowSlipping = accelError > DriveConstants.kSlipMaxAccelErrorMetersPerSecondSquared
+					|| yawRateError > DriveConstants.kSlipMaxYawRateErrorRadiansPerSecond;
+			double jerk = Math.hypot(rawGyroAccelX - lastRawGyroAccelX, rawGyroAccelY - lastRawGyroAccelY) / GRAVITY;
+			nowColliding = jerk > DriveConstants.kCollisionJerkG;
+		}
+		lastTractionTimestamp = timestamp;
+		lastWheelVx = fieldVx;
+		lastWheelVy = fieldVy;
+		lastRawGyroAccelX = rawGyroAccelX;
+		lastRawGyroAccelY = rawGyroAccelY;
+
+		boolean slipStarted = nowSlipping && !slipping;
+		boolean collisionStarted = nowColliding && !colliding;
+		slipping = nowSlipping;
+		colliding = nowColliding;
+		if (slipStarted) {
+			wheelSlips++;
+		}
+		if (collisionStarted) {
+			collisions++;
+		}
+		if (slipStarted || collisionStarted) {
+			synchronized (odometryLock) {
+				visionRejectedInARow = VisionConstants.kVisionMaxRejectionsInARow;
+			}
+		}
+
+		int slipBits = slippingModules;
+		for (int i = 0; i < moduleSlippingLog.length; i++) {
+			DataLogger.setBoolean(moduleSlippingLog[i], (slipBits & (1 << ODOMETRY_INDEX[i])) != 0);
+		}
+		DataLogger.setBoolean(SLIPPING_LOG, slipping);
+		DataLogger.setBoolean(COLLISION_LOG, colliding);
+		DataLogger.set(WHEEL_YAW_RATE_LOG, wheelYawRate);
+		moduleSlipSignal.set(moduleSlips);
+		wheelSlipSignal.set(wheelSlips);
+		collisionSignal.set(collisions);
 	}
 
+	/*
+	 * Module positions in odometry order. The returned array and the positions in
+	 * it are reused on every call, callers must not hold on to them. Only called
+	 * while holding odometryLock.
+	 */
 	public SwerveModulePosition[] getPositions() {
-		return new SwerveModulePosition[] {
-				frontLeft.getPosition(),
-				frontRight.getPosition(),
-				backLeft.getPosition(),
-				backRight.getPosition()
-		};
+		modulePositions[0] = frontLeft.getPosition();
+		modulePositions[1] = frontRight.getPosition();
+		modulePositions[2] = backLeft.getPosition();
+		modulePositions[3] = backRight.getPosition();
+		return modulePositions;
 	}
 
 	@Override()
 	public void periodic() {
+		LoopProfiler.start(PERIODIC_SECTION);
 
 		/*
 		 * The state of the robot gyro and individual swerve modules are
-		 * sent to odometer on each cycle of the program.
+		 * sent to the odometer by the odometry thread, see updateOdometry().
 		 */
 
-		odometer.update(this._gyro.getRotation2d(), getPositions());
+		headingSignal.set(this._gyro.getHeading());
+
+		logModule(0, frontLeft);
+		logModule(1, backLeft);
+		logModule(2, frontRight);
+		logModule(3, backRight);
+		Pose2d pose = getPose();
+		DataLogger.set(POSE_X_LOG, pose.getX());
+		DataLogger.set(POSE_Y_LOG, pose.getY());
+		DataLogger.set(POSE_HEADING_LOG, pose.getRotation().getDegrees());
+		checkTraction();
 
-		SmartDashboard.putNumber("Robot Heading", this._gyro.getHeading());
 		// SmartDashboard.putString("Robot Location",
 		// getPose().getTranslation().toString());
+		LoopProfiler.stop(PERIODIC_SECTION);
+	}
+
+	private static int[] addModuleLogs(String name) {
+		int[] ids = new int[MODULE_NAMES.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = DataLogger.addDouble("Drive/" + MODULE_NAMES[i] + "/" + name);
+		}
+		return ids;
+	}
+
+	private static int[] addModuleBooleanLogs(String name) {
+		int[] ids = new int[MODULE_NAMES.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = DataLogger.addBoolean("Drive/" + MODULE_NAMES[i] + "/" + name);
+		}
+		return ids;
+	}
+
+	private static void logModule(int index, SwerveModule module) {
+		SwerveModuleState state = module.getState();
+		DataLogger.set(steerPositionLog[index], module.getSteerEncoder());
+		DataLogger.set(drivePositionLog[index], module.getDriveEncoder());
+		DataLogger.set(speedLog[index], state.speedMetersPerSecond);
+		DataLogger.set(angleLog[index], state.angle.getRadians());
+	}
+
+	/*
+	 * Work out how fast the simulated modules are turning the robot and pass it to
+	 * the simulated gyro.
+	 */
+	@Override
+	public void simulationPeriodic() {
+		ChassisSpeeds speeds = DriveConstants.FrameConstants.kDriveKinematics.toChassisSpeeds(
+				frontLeft.getState(), frontRight.getState(), backLeft.getState(), backRight.getState());
+		double dt = TimedRobot.kDefaultPeriod;
+		simulatedPose = simulatedPose.exp(new Twist2d(speeds.vxMetersPerSecond * dt,
+				speeds.vyMetersPerSecond * dt, speeds.omegaRadiansPerSecond * dt));
+		// The gyro feels the true motion, not the vision corrected estimate
+		this._gyro.updateSimulation(dt, speeds.omegaRadiansPerSecond, simulatedPose);
 	}
 
 	public void stopModules() {
@@ -372,13 +852,57 @@ public class Drive extends SubsystemBase {
 		backRight.driveMotorRamp(false);
 	}
 
+	/*
+	 * Drive the modules at desiredStates, in kinematics order, through the
+	 * setpoint generator. Used by path following.
+	 */
 	public void setModuleStates(SwerveModuleState[] desiredStates) {
 		SwerveDriveKinematics.desaturateWheelSpeeds(desiredStates,
 				DriveConstants.FrameConstants.kPhysicalMaxSpeedMetersPerSecond / 2);
-		frontLeft.setDesiredState(desiredStates[0]);
-		frontRight.setDesiredState(desiredStates[1]);
-		backLeft.setDesiredState(desiredStates[2]);
-		backRight.setDesiredState(desiredStates[3]);
+		setSetpoint(SwerveMath.FRONT_LEFT, desiredStates[0]);
+		setSetpoint(SwerveMath.FRONT_RIGHT, desiredStates[1]);
+		setSetpoint(SwerveMath.BACK_LEFT, desiredStates[2]);
+		setSetpoint(SwerveMath.BACK_RIGHT, desiredStates[3]);
+		limitSetpoints();
+		frontLeft.setDesiredState(setpointSpeeds[SwerveMath.FRONT_LEFT],
+				Math.toDegrees(setpointAngles[SwerveMath.FRONT_LEFT]));
+		frontRight.setDesiredState(setpointSpeeds[SwerveMath.FRONT_RIGHT],
+				Math.toDegrees(setpointAngles[SwerveMath.FRONT_RIGHT]));
+		backLeft.setDesiredState(setpointSpeeds[SwerveMath.BACK_LEFT],
+				Math.toDegrees(setpointAngles[SwerveMath.BACK_LEFT]));
+		backRight.setDesiredState(setpointSpeeds[SwerveMath.BACK_RIGHT],
+				Math.toDegrees(setpointAngles[SwerveMath.BACK_RIGHT]));
+	}
+
+	private void setSetpoint(int module, SwerveModuleState state) {
+		setpointSpeeds[module] = state.speedMetersPerSecond;
+		setpointAngles[module] = state.angle.getRadians();
+	}
+
+	/*
+	 * Run the requested setpoints through the setpoint generator. If the last
+	 * setpoint is stale, the drive was disabled or something else was driving the
+	 * modules, so start again from what the modules are measured doing.
+	 */
+	private void limitSetpoints() {
+		double timestamp = frontLeft.getSampleTimestamp();
+		double dt = timestamp - lastSetpointTimestamp;
+		if (dt > DriveConstants.kSetpointStaleSeconds) {
+			measuredSetpoint(SwerveMath.FRONT_LEFT, frontLeft);
+			measuredSetpoint(SwerveMath.BACK_LEFT, backLeft);
+			measuredSetpoint(SwerveMath.FRONT_RIGHT, frontRight);
+			measuredSetpoint(SwerveMath.BACK_RIGHT, backRight);
+			setpointGenerator.reset(measuredSpeeds, measuredAngles);
+		}
+		lastSetpointTimestamp = timestamp;
+		setpointGenerator.calculate(setpointSpeeds, setpointAngles, dt > 0 ? dt : TimedRobot.kDefaultPeriod);
+		DataLogger.set(SETPOINT_FRACTION_LOG, setpointGenerator.getLastFraction());
+	}
+
+	private void measuredSetpoint(int module, SwerveModule swerveModule) {
+		SwerveModuleState state = swerveModule.getState();
+		measuredSpeeds[module] = state.speedMetersPerSecond;
+		measuredAngles[module] = state.angle.getRadians();
 	}
 
 	private boolean isCoastMode = false;
@@ -0,0 +1,33 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/*
+    Hardware interface for the gyro used by NavXGyro. Angles are in degrees and use the
+    navX conventions: the yaw angle is continuous and clockwise positive. Linear
+    accelerations are in g with gravity removed, along the board's X and Y axes.
+*/
+public interface GyroIO {
+
+    double getAngle();
+
+    double getFusedHeading();
+
+    double getPitch();
+
+    double getWorldLinearAccelX();
+
+    double getWorldLinearAccelY();
+
+    void reset();
+
+    void setAngleAdjustment(double adjustment);
+
+    /*
+        Advance the model by dtSeconds while the robot at pose turns at
+        omegaRadiansPerSecond (counter-clockwise positive, as wpilib reports it). Only
+        simulated implementations do anything here.
+    */
+    default void updateSimulation(double dtSeconds, double omegaRadiansPerSecond, Pose2d pose) {
+    }
+}
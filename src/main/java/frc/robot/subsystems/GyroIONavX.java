@@ -0,0 +1,54 @@
+package frc.robot.subsystems;
+
+import com.kauailabs.navx.frc.AHRS;
+
+import edu.wpi.first.wpilibj.SPI;
+import frc.robot.Constants.DriveConstants;
+
+/*
+    navX-MXP on the roboRIO MXP SPI port.
+*/
+public class GyroIONavX implements GyroIO {
+
+    private final AHRS navX;
+
+    public GyroIONavX() {
+        // Run the navX at the odometry rate instead of the 50Hz default
+        navX = new AHRS(SPI.Port.kMXP, DriveConstants.kNavXUpdateRateHz);
+    }
+
+    @Override
+    public double getAngle() {
+        return navX.getAngle();
+    }
+
+    @Override
+    public double getFusedHeading() {
+        return navX.getFusedHeading();
+    }
+
+    @Override
+    public double getPitch() {
+        return navX.getPitch();
+    }
+
+    @Override
+    public double getWorldLinearAccelX() {
+        return navX.getWorldLinearAccelX();
+    }
+
+    @Override
+    public double getWorldLinearAccelY() {
+        return navX.getWorldLinearAccelY();
+    }
+
+    @Override
+    public void reset() {
+        navX.reset();
+    }
+
+    @Override
+    public void setAngleAdjustment(double adjustment) {
+        navX.setAngleAdjustment(adjustment);
+    }
+}
@@ -0,0 +1,59 @@
+package frc.robot.subsystems;
+
+import frc.robot.Utility.LogReplaySource;
+
+/*
+    Gyro that reports the angles recorded by NavXGyro in a DataLogger file. The recorded
+    angle already includes any angle adjustment, so adjustments and resets are ignored.
+*/
+public class GyroIOReplay implements GyroIO {
+
+    private final LogReplaySource source;
+    private final int angleSignal;
+    private final int pitchSignal;
+    private final int accelXSignal;
+    private final int accelYSignal;
+
+    public GyroIOReplay(LogReplaySource source) {
+        this.source = source;
+        angleSignal = source.require("Gyro/Angle");
+        pitchSignal = source.require("Gyro/Pitch");
+        // Older logs have no acceleration, replay them as if there was none
+        accelXSignal = source.getReader().indexOf("Gyro/Accel X");
+        accelYSignal = source.getReader().indexOf("Gyro/Accel Y");
+    }
+
+    @Override
+    public double getAngle() {
+        return source.get(angleSignal);
+    }
+
+    @Override
+    public double getFusedHeading() {
+        double heading = getAngle() % 360.0;
+        return heading < 0 ? heading + 360.0 : heading;
+    }
+
+    @Override
+    public double getPitch() {
+        return source.get(pitchSignal);
+    }
+
+    @Override
+    public double getWorldLinearAccelX() {
+        return accelXSignal < 0 ? 0.0 : source.get(accelXSignal);
+    }
+
+    @Override
+    public double getWorldLinearAccelY() {
+        return accelYSignal < 0 ? 0.0 : source.get(accelYSignal);
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public void setAngleAdjustment(double adjustment) {
+    }
+}
@@ -0,0 +1,118 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+
+/*
+    Simulated gyro. The yaw is integrated from the chassis rotation rate worked out by
+    Drive from the simulated swerve modules. Values are volatile because the odometry
+    thread reads them.
+
+    Pitch comes from a crude model of the charge stations: while the robot is on a
+    station the platform tips toward whichever side of the center the robot is on, and
+    the robot pitches by the platform angle along its heading. That is enough for
+    DriveBalanceCommand to have something to balance.
+
+    Linear acceleration is differenced twice from the poses Drive passes in, and turned
+    into the robot frame, X forward and Y left.
+*/
+public class GyroIOSim implements GyroIO {
+
+    // 2023 charge station footprints in field coordinates (blue origin), meters
+    private static final double FIELD_LENGTH = 16.54;
+    private static final double STATION_MIN_X = 2.92;
+    private static final double STATION_MAX_X = 4.85;
+    private static final double STATION_MIN_Y = 1.51;
+    private static final double STATION_MAX_Y = 3.98;
+    private static final double STATION_CENTER_X = (STATION_MIN_X + STATION_MAX_X) / 2.0;
+
+    private static final double MAX_TILT_DEGREES = 15.0;
+    private static final double TILT_DEGREES_PER_METER = 50.0;
+    private static final double TILT_TIME_CONSTANT = 0.4; // seconds
+    private static final double GRAVITY = 9.80665; // meters per second squared per g
+
+    private volatile double angle = 0.0;
+    private volatile double pitch = 0.0;
+    private volatile double accelX = 0.0;
+    private volatile double accelY = 0.0;
+    private double adjustment = 0.0;
+    private double platformTilt = 0.0;
+    private Pose2d lastPose = null;
+    private double lastVelocityX = 0.0;
+    private double lastVelocityY = 0.0;
+
+    @Override
+    public double getAngle() {
+        return angle + adjustment;
+    }
+
+    @Override
+    public double getFusedHeading() {
+        double heading = getAngle() % 360.0;
+        return heading < 0 ? heading + 360.0 : heading;
+    }
+
+    @Override
+    public double getPitch() {
+        return pitch;
+    }
+
+    @Override
+    public double getWorldLinearAccelX() {
+        return accelX;
+    }
+
+    @Override
+    public double getWorldLinearAccelY() {
+        return accelY;
+    }
+
+    @Override
+    public void reset() {
+        angle = 0.0;
+    }
+
+    @Override
+    public void setAngleAdjustment(double adjustment) {
+        this.adjustment = adjustment;
+    }
+
+    @Override
+    public void updateSimulation(double dtSeconds, double omegaRadiansPerSecond, Pose2d pose) {
+        // The navX is clockwise positive
+        angle -= Math.toDegrees(omegaRadiansPerSecond) * dtSeconds;
+
+        if (lastPose != null) {
+            double velocityX = (pose.getX() - lastPose.getX()) / dtSeconds;
+            double velocityY = (pose.getY() - lastPose.getY()) / dtSeconds;
+            double fieldAccelX = (velocityX - lastVelocityX) / dtSeconds;
+            double fieldAccelY = (velocityY - lastVelocityY) / dtSeconds;
+            double cos = pose.getRotation().getCos();
+            double sin = pose.getRotation().getSin();
+            accelX = (fieldAccelX * cos + fieldAccelY * sin) / GRAVITY;
+            accelY = (-fieldAccelX * sin + fieldAccelY * cos) / GRAVITY;
+            lastVelocityX = velocityX;
+            lastVelocityY = velocityY;
+        }
+        lastPose = pose;
+
+        // Mirror the red station onto the blue one, the heading flips with it
+        double x = pose.getX();
+        double cosHeading = pose.getRotation().getCos();
+        if (x > FIELD_LENGTH / 2.0) {
+            x = FIELD_LENGTH - x;
+            cosHeading = -cosHeading;
+        }
+
+        boolean onStation = x >= STATION_MIN_X && x <= STATION_MAX_X
+            && pose.getY() >= STATION_MIN_Y && pose.getY() <= STATION_MAX_Y;
+        double targetTilt = onStation
+            ? MathUtil.clamp((x - STATION_CENTER_X) * TILT_DEGREES_PER_METER, -MAX_TILT_DEGREES, MAX_TILT_DEGREES)
+            : 0.0;
+        platformTilt += (targetTilt - platformTilt) * Math.min(1.0, dtSeconds / TILT_TIME_CONSTANT);
+
+        // Positive platform tilt is low toward +X. The navX is mounted so nose down reads
+        // positive, which DriveBalanceCommand answers by driving backwards.
+        pitch = onStation ? platformTilt * cosHeading : 0.0;
+    }
+}
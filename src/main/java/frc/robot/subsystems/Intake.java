@@ -1,46 +1,60 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMax.IdleMode;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.IntakeConstants;
+import frc.robot.Utility.DataLogger;
 
 public class Intake extends SubsystemBase {
 
     private static Intake instance;
 
-    private CANSparkMax intakeMotor;
-
-    public Intake() {
-        intakeMotor = new CANSparkMax(IntakeConstants.intakeMotorId, MotorType.kBrushless);
+    private final IntakeIO io;
 
-        // Factory reset, so we get the SPARKS MAX to a known state before configuring
-        // them. This is useful in case a SPARK MAX is swapped out.
-        intakeMotor.restoreFactoryDefaults();
+    // Output current sampled once per loop by refreshSensors()
+    private double outputCurrentSample;
 
-        intakeMotor.setIdleMode(IdleMode.kBrake);
-        intakeMotor.setSmartCurrentLimit(20);
+    private static final int CURRENT_LOG = DataLogger.addDouble("Intake/Current");
+    private static final int OUTPUT_LOG = DataLogger.addDouble("Intake/Output");
 
-        // Save the SPARK MAX configurations. If a SPARK MAX browns out during
-        // operation, it will maintain the above configurations.
-        intakeMotor.burnFlash();
+    public Intake(IntakeIO io) {
+        this.io = io;
     }
 
     public void intakeMove(double speed) {
-        intakeMotor.set(speed);
+        io.setOutput(speed);
+        DataLogger.set(OUTPUT_LOG, speed);
     }
 
     public static Intake getInstance() {
         if(instance == null) {
-            instance = new Intake();
+            instance = new Intake(RobotBase.isReal() ? new IntakeIOReal() : new IntakeIOSim());
         }
         return instance;
     }
 
+    public static Intake getInstance(IntakeIO io) {
+        if(instance == null) {
+            instance = new Intake(io);
+        }
+        return instance;
+    }
+
+    /*
+     * Read the intake motor current once. Called at the start of each robot loop.
+     */
+    public void refreshSensors() {
+        outputCurrentSample = io.getOutputCurrent();
+        DataLogger.set(CURRENT_LOG, outputCurrentSample);
+    }
+
     public double getOutputCurrent() {
-        return intakeMotor.getOutputCurrent();
+        return outputCurrentSample;
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        io.updateSimulation(TimedRobot.kDefaultPeriod);
     }
 
 }
@@ -0,0 +1,20 @@
+package frc.robot.subsystems;
+
+/*
+    Hardware interface for the intake roller.
+*/
+public interface IntakeIO {
+
+    /*
+        Intake motor output from -1 to 1.
+    */
+    void setOutput(double output);
+
+    double getOutputCurrent();
+
+    /*
+        Advance the model by dtSeconds. Only simulated implementations do anything here.
+    */
+    default void updateSimulation(double dtSeconds) {
+    }
+}
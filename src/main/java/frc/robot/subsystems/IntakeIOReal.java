@@ -0,0 +1,67 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMax.SoftLimitDirection;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import frc.robot.Constants.IntakeConstants;
+import frc.robot.Utility.CanStatusFrames;
+import frc.robot.Utility.DeviceConfigurator;
+
+/*
+    Intake hardware: a single Spark Max driven Neo.
+*/
+public class IntakeIOReal implements IntakeIO {
+
+    private final CANSparkMax intakeMotor;
+
+    public IntakeIOReal() {
+        intakeMotor = new CANSparkMax(IntakeConstants.intakeMotorId, MotorType.kBrushless);
+
+        // Configured on the DeviceConfigurator threads, alongside the other devices
+        DeviceConfigurator.submit("Intake", this::configure);
+    }
+
+    private void configure() {
+        String name = "Intake";
+
+        // Reset and set up every boot, only flashed when the settings the Spark Max has
+        // now are not ours, see SwerveModuleIOReal
+        boolean stored = intakeMotor.getIdleMode() == IdleMode.kBrake
+            && !intakeMotor.getInverted()
+            && intakeMotor.getOpenLoopRampRate() == 0
+            && intakeMotor.getClosedLoopRampRate() == 0
+            && !intakeMotor.isFollower()
+            && !intakeMotor.isSoftLimitEnabled(SoftLimitDirection.kForward)
+            && !intakeMotor.isSoftLimitEnabled(SoftLimitDirection.kReverse);
+
+        // Factory reset, so we get the SPARKS MAX to a known state before configuring
+        // them. This is useful in case a SPARK MAX is swapped out.
+        DeviceConfigurator.rev(name, "restoreFactoryDefaults", intakeMotor::restoreFactoryDefaults);
+        DeviceConfigurator.rev(name, "idle mode", () -> intakeMotor.setIdleMode(IdleMode.kBrake));
+
+        // The current limit cannot be read back and the status frame periods are not kept
+        // in flash, so these are sent every boot
+        DeviceConfigurator.rev(name, "current limit", () -> intakeMotor.setSmartCurrentLimit(20));
+        CanStatusFrames.configure(intakeMotor, CanStatusFrames.Device.INTAKE);
+
+        if (stored) {
+            DeviceConfigurator.flashSkipped();
+        } else {
+            // Save the SPARK MAX configurations. If a SPARK MAX browns out during
+            // operation, it will maintain the above configurations.
+            DeviceConfigurator.rev(name, "burnFlash", intakeMotor::burnFlash);
+        }
+    }
+
+    @Override
+    public void setOutput(double output) {
+        intakeMotor.set(output);
+    }
+
+    @Override
+    public double getOutputCurrent() {
+        return intakeMotor.getOutputCurrent();
+    }
+}
@@ -0,0 +1,33 @@
+package frc.robot.subsystems;
+
+import frc.robot.Utility.LogReplaySource;
+
+/*
+    Intake that reports the current recorded by Intake in a DataLogger file.
+*/
+public class IntakeIOReplay implements IntakeIO {
+
+    private final LogReplaySource source;
+    private final int currentSignal;
+
+    private double output = 0.0;
+
+    public IntakeIOReplay(LogReplaySource source) {
+        this.source = source;
+        currentSignal = source.require("Intake/Current");
+    }
+
+    @Override
+    public void setOutput(double output) {
+        this.output = output;
+    }
+
+    public double getOutput() {
+        return output;
+    }
+
+    @Override
+    public double getOutputCurrent() {
+        return source.get(currentSignal);
+    }
+}
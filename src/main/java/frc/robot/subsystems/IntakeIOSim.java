@@ -0,0 +1,22 @@
+package frc.robot.subsystems;
+
+/*
+    Simulated intake. The current draw is proportional to the output, up to the 20A
+    current limit used on the robot.
+*/
+public class IntakeIOSim implements IntakeIO {
+
+    private static final double CURRENT_LIMIT = 20.0;
+
+    private double output = 0.0;
+
+    @Override
+    public void setOutput(double output) {
+        this.output = output;
+    }
+
+    @Override
+    public double getOutputCurrent() {
+        return Math.abs(output) * CURRENT_LIMIT;
+    }
+}
@@ -5,30 +5,61 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import com.kauailabs.navx.frc.AHRS;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Utility.DataLogger;
 
 public class NavXGyro extends SubsystemBase {
 
   private static NavXGyro instance;
-  public static AHRS navX;
+  private final GyroIO navX;
   public static double zeroHeading;
   public static double zeroAngle;
 
+  // Gyro values sampled once per loop by refreshSensors()
+  private double angleSample;
+  private double pitchSample;
+  private double accelXSample;
+  private double accelYSample;
+  private double sampleTimestamp;
+  private double yawRate;
+
+  private static final int ANGLE_LOG = DataLogger.addDouble("Gyro/Angle");
+  private static final int PITCH_LOG = DataLogger.addDouble("Gyro/Pitch");
+  private static final int ZERO_ANGLE_LOG = DataLogger.addDouble("Gyro/Zero Angle");
+  private static final int ACCEL_X_LOG = DataLogger.addDouble("Gyro/Accel X");
+  private static final int ACCEL_Y_LOG = DataLogger.addDouble("Gyro/Accel Y");
+
   /** Creates a new NavXGyro. */
-  private NavXGyro() {
-    navX = new AHRS(SPI.Port.kMXP);
+  private NavXGyro(GyroIO io) {
+    navX = io;
 
+    refreshSensors();
     zeroHeading = getNavHeading();
     zeroAngle = getNavAngle();
     System.out.println("Setup ZeroAngle " + zeroAngle);
   }
 
   // Public Methods
+  /*
+      Use the navX on the robot and a simulated gyro everywhere else.
+  */
   public static NavXGyro getInstance() {
     if (instance == null) {
-      instance = new NavXGyro();
+      instance = new NavXGyro(RobotBase.isReal() ? new GyroIONavX() : new GyroIOSim());
+    }
+    return instance;
+  }
+
+  /*
+      Create the gyro with a specific GyroIO, for running the robot code off the robot.
+      Must be called before anything else calls getInstance.
+  */
+  public static NavXGyro getInstance(GyroIO io) {
+    if (instance == null) {
+      instance = new NavXGyro(io);
     }
     return instance;
   }
@@ -38,9 +69,57 @@ public class NavXGyro extends SubsystemBase {
     return heading;
   }
 
+  /*
+      Read the gyro once. Called at the start of each robot loop, everything on the main
+      loop reads the sampled values.
+  */
+  public void refreshSensors() {
+    double lastAngle = angleSample;
+    double lastTimestamp = sampleTimestamp;
+    angleSample = navX.getAngle();
+    pitchSample = navX.getPitch();
+    accelXSample = navX.getWorldLinearAccelX();
+    accelYSample = navX.getWorldLinearAccelY();
+    sampleTimestamp = Timer.getFPGATimestamp();
+    double dt = sampleTimestamp - lastTimestamp;
+    // Counter-clockwise positive like the wpilib headings
+    yawRate = dt > 0 && lastTimestamp > 0 ? -Math.toRadians(angleSample - lastAngle) / dt : 0.0;
+    DataLogger.set(ANGLE_LOG, angleSample);
+    DataLogger.set(PITCH_LOG, pitchSample);
+    DataLogger.set(ZERO_ANGLE_LOG, zeroAngle);
+    DataLogger.set(ACCEL_X_LOG, accelXSample);
+    DataLogger.set(ACCEL_Y_LOG, accelYSample);
+  }
+
+  /*
+      FPGA timestamp in seconds of the last refreshSensors() call.
+  */
+  public double getSampleTimestamp() {
+    return sampleTimestamp;
+  }
+
+  /*
+      Yaw rate in radians per second, counter-clockwise positive, between the last two
+      refreshSensors() calls.
+  */
+  public double getYawRate() {
+    return yawRate;
+  }
+
+  /*
+      Linear acceleration in g along the navX X and Y axes, gravity removed, as of the
+      last refreshSensors() call.
+  */
+  public double getAccelX() {
+    return accelXSample;
+  }
+
+  public double getAccelY() {
+    return accelYSample;
+  }
+
   public double getNavAngle() {
-    double angle = navX.getAngle();
-    return angle;
+    return angleSample;
   }
 
   public void setGyroAngleOffset(double offset) {
@@ -50,6 +129,9 @@ public class NavXGyro extends SubsystemBase {
   public void zeroNavHeading() {
     // navX.zeroYaw();
     navX.reset();
+    refreshSensors();
+    // The angle jumped, not turned
+    yawRate = 0.0;
     zeroHeading = getNavHeading();
     zeroAngle = getNavAngle();
     System.out.println("ZeroHeading: " + zeroHeading);
@@ -83,7 +165,23 @@ public class NavXGyro extends SubsystemBase {
     return Rotation2d.fromDegrees(getHeading());
   }
 
+  /*
+      Same as getRotation2d() but reads the navX directly instead of the loop sample.
+      Used by the odometry thread, which runs faster than the main loop.
+  */
+  public Rotation2d sampleRotation2d() {
+    return Rotation2d.fromDegrees(Math.IEEEremainder(-navX.getAngle(), 360));
+  }
+
   public double getPitchAngle() {
-    return navX.getPitch();
+    return pitchSample;
+  }
+
+  /*
+      Feed the chassis rotation rate and pose to a simulated gyro. Called by Drive in
+      simulation.
+  */
+  public void updateSimulation(double dtSeconds, double omegaRadiansPerSecond, Pose2d pose) {
+    navX.updateSimulation(dtSeconds, omegaRadiansPerSecond, pose);
   }
 }
\ No newline at end of file
@@ -7,21 +7,21 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.FeedbackDevice;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
-import com.ctre.phoenix.motorcontrol.can.TalonSRX;
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMax.IdleMode;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-import com.revrobotics.RelativeEncoder;
 //import edu.wpi.first.wpilibj.AnalogInput;
 //import edu.wpi.first.math.controller.PIDController; //Use for Roborio PID
 //import edu.wpi.first.math.MathUtil; // Use for RoboRio PID
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.DriveConstants.ModuleConstants;
+import frc.robot.Utility.DataLogger;
+import frc.robot.Utility.SwerveMath;
+import frc.robot.Utility.Telemetry;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
@@ -34,17 +34,21 @@ public class SwerveModule extends SubsystemBase {
    */
   
   public double currentPosition;
-  private TalonSRX steerMotor;
-  private CANSparkMax driveMotor;
-  private static final double RAMP_RATE = 0.5;//1.5;
+  private final SwerveModuleIO io;
+  static final double RAMP_RATE = 0.5;//1.5;
+
+  /*
+      A new steer target closer than this to the last one sent, in steer encoder counts,
+      is not sent to the Talon. It is the same as the Talon's allowable closed loop
+      error, so the Talon would not have moved for it anyway. Zero sends every target.
+  */
+  static final double STEER_SETPOINT_DEADBAND = SwerveModuleIOReal.STEER_ALLOWABLE_ERROR;
 
   //Use the following two line if using PID in RoboRIO
   //private static final double STEER_P = .0035, STEER_I = 0.00003, STEER_D = 0.0000;
   //private PIDController steerPID;
 
   // private AnalogInput analogIn; //Set up analog input for Roborio
- 
-  private RelativeEncoder driveMotorEncoder; //Set up integrated Drive motor encoder in Spark Max/Neo
   
   // private double lastEncoderVal = 0;
   // private double numTurns = 0;
@@ -53,52 +57,80 @@ public class SwerveModule extends SubsystemBase {
 
   // private double loopCounter = 0;
   // private static final double MAXSTEERERROR = 5;
-  //private static final double STEER_P = 3.0, STEER_I = 0.0, STEER_D = 0.1;
-  private static final double STEER_P = 6.0, STEER_I = 0.0, STEER_D = 0.2;
-  private static final int STATUS_FRAME_PERIOD = 5;
 
-  public double encoderCountPerRotation = 1024;
+  static final int STEER_COUNTS_PER_ROTATION = 1024;
+  public double encoderCountPerRotation = STEER_COUNTS_PER_ROTATION;
+
+  /*
+      One Rotation2d for every steer encoder count, so getState() and getPosition() can
+      hand out a module angle without allocating. The analog encoder changes by a count
+      or two almost every loop, so caching the last rotation was not enough. Entry k is
+      the odometry angle for an encoder reading of k counts.
+  */
+  private static final Rotation2d[] STEER_ROTATIONS = new Rotation2d[STEER_COUNTS_PER_ROTATION];
+
+  static {
+    for (int count = 0; count < STEER_COUNTS_PER_ROTATION; count++) {
+      // Inverted for odometry, see toTurningPosition()
+      STEER_ROTATIONS[count] = new Rotation2d(-2 * Math.PI * count / STEER_COUNTS_PER_ROTATION);
+    }
+  }
 
   private boolean _driveCorrect;
 
-  public SwerveModule(int steerNum, int driveNum, boolean invertDrive, boolean invertSteer) {
-
-    //Create and configure a new Drive motor
-    driveMotor = new CANSparkMax(driveNum, MotorType.kBrushless);
-		driveMotor.restoreFactoryDefaults();
-		driveMotor.setInverted(invertDrive);// setInverted reverses the both the motor and the encoder direction.
-		driveMotor.setOpenLoopRampRate(RAMP_RATE);// This provides a motor ramp up time to prevent brown outs.
-		//driveMotor.setIdleMode(IdleMode.kCoast);
-    driveMotor.setIdleMode(IdleMode.kBrake);
-    driveMotor.setSmartCurrentLimit(55);
- 
-
-    //Create and configure an analog input on a roborio port
-    //analogIn = new AnalogInput(analogNum);
-
-    //Create and configure a new Steering motor
-    steerMotor = new TalonSRX(steerNum);
-    steerMotor.configFactoryDefault();
-    steerMotor.configSelectedFeedbackSensor(FeedbackDevice.Analog, 0, 0);
-    steerMotor.config_kP(0, STEER_P, 0);
-    steerMotor.config_kI(0, STEER_I, 0);
-    steerMotor.config_kD(0, STEER_D, 0);
-    steerMotor.config_IntegralZone(0, 100, 0);
-    steerMotor.configAllowableClosedloopError(0, 2, 0);
-    steerMotor.setNeutralMode(NeutralMode.Brake);
-    steerMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, STATUS_FRAME_PERIOD, 0);
-    steerMotor.setInverted(invertSteer); // setInverted reverses the both the motor and the encoder direction.
-    steerMotor.setSensorPhase(true); // setSensorPhase is used to reverse just the encoder direction and not the motor direction.
-
-    //Create the built in motor encoders
- 
-    driveMotorEncoder = driveMotor.getEncoder();
-    driveMotorEncoder.setPositionConversionFactor(DriveConstants.ModuleConstants.kDriveEncoderRot2Meter);
-    driveMotorEncoder.setVelocityConversionFactor(DriveConstants.ModuleConstants.kDriveEncoderRPM2MeterPerSec);
-    driveMotor.burnFlash();// Set configuration values to flash memory in Spark Max to prevent errors.
-    resetEncoders();
-    //driveMotorEncoder.setPosition(0);
+  /*
+      Sensor values sampled once per loop by refreshSensors(). Everything on the main
+      loop reads these instead of going back to the motor controllers over CAN.
+  */
+  private double steerPositionSample;
+  private double drivePositionSample;
+  private double driveVelocitySample;
+  private double sampleTimestamp;
+
+  private final double[] steerResult = new double[2];
+
+  private final SimpleMotorFeedforward driveFeedforward =
+      new SimpleMotorFeedforward(ModuleConstants.kDriveKS, ModuleConstants.kDriveKV);
+
+  private final SwerveModuleState moduleState = new SwerveModuleState();
+  private final SwerveModulePosition modulePosition = new SwerveModulePosition();
+
+  // DataLogger ids for the commanded outputs, -1 when the module is not logged
+  private final int driveOutputLog;
+  private final int steerTargetLog;
+  private final int velocitySetpointLog;
+
+  // Steer targets actually sent, and how many were sent per second. These count the
+  // setSteerPosition() calls, Phoenix sends the control frame on its own period
+  private double lastSteerTarget = Double.NaN;
+  private int steerSetpointsSent = 0;
+  private double steerSetpointsWindowStart = 0.0;
+  private final Telemetry.NumberSignal steerSetpointsSignal;
+
+  /*
+      The motors and encoders are behind a SwerveModuleIO so the same module code runs on
+      the robot and in simulation. See SwerveModuleIOReal for the hardware configuration.
+      A module created without a name does not write to the DataLogger.
+  */
+  public SwerveModule(SwerveModuleIO io) {
+    this(null, io);
+  }
 
+  public SwerveModule(String name, SwerveModuleIO io) {
+    this.io = io;
+    if (name != null) {
+      driveOutputLog = DataLogger.addDouble("Drive/" + name + "/Drive Output");
+      steerTargetLog = DataLogger.addDouble("Drive/" + name + "/Steer Target");
+      velocitySetpointLog = DataLogger.addDouble("Drive/" + name + "/Velocity Setpoint");
+      steerSetpointsSignal = Telemetry.addNumber("Drive/" + name + "/Steer Setpoints per s", Telemetry.SLOW);
+    } else {
+      steerSetpointsSignal = null;
+      driveOutputLog = -1;
+      steerTargetLog = -1;
+      velocitySetpointLog = -1;
+    }
+    // The encoders are not touched here, SwerveModuleIOReal zeroes the drive encoder as
+    // part of its configuration and the first loop's refreshSensors() reads them
   }
    
   public void setSwerve(double angle, double speed, boolean driveCorrect) {
@@ -112,49 +144,15 @@ public class SwerveModule extends SubsystemBase {
     //double targetAngle = angle; //-angle;
     //double deltaDegrees = targetAngle - currentAngle;
 
-    double currentPosition = steerMotor.getSelectedSensorPosition(0);
-    double currentAngle = (currentPosition * 360.0 / this.encoderCountPerRotation) % 360.0;
-    double targetAngle = -angle; //-angle;
-    double deltaDegrees = targetAngle - currentAngle;
-
-    /* 
-        The gyro reads in degrees from 0 to 360 where the 0/360 degree position is straight ahead.
-        The swerve equations generate position angles from -180 to 180 degrees where the 
-        center point of zero degrees is straight ahead.
-        To relate the two coordinate systems we "shift" the gyro reading to make it "read" -180 to 180
-    */
-    if (Math.abs(deltaDegrees) > 180.0) {
-      deltaDegrees -= 360.0 * Math.signum(deltaDegrees);
-    }
-
-    /* 
-        If we need to turn more than 90 degrees, we can reverse the wheel direction
-        instead and only rotate by the complement
-    */
-    //if (Math.abs(speed) <= MAX_SPEED){
-      if (!this._driveCorrect){
-        if (Math.abs(deltaDegrees) > 90.0) {
-          deltaDegrees -= 180.0 * Math.signum(deltaDegrees);
-          speed = -speed;
-        }
-      }
-	  //}
-
-    //Add change in position to current position
-    //double targetPosition = currentAngle + deltaDegrees;
-    //Scale the new position to match the motor encoder
-    //double scaledPosition = (targetPosition / (360/STEER_MOTOR_RATIO)); 
-    //steerPID.setSetpoint(targetPosition); // Use for RoboRio PID
-    //double steerOutput = steerPID.calculate(currentAngle); // Use for RoboRio PID
-    //steerOutput = MathUtil.clamp(steerOutput, -1, 1); // Use for RoboRio PID
-
     /*
-        Scale the new position to match the motor encoder and add change in position to current position.
+        Wrap the requested angle around the current steer position and, unless drive
+        correction is on, reverse the wheel instead of turning more than 90 degrees.
+        See SwerveMath.optimizeSteer.
     */
-    double targetPosition = currentPosition + ((deltaDegrees/360) * encoderCountPerRotation);
+    speed = steerTo(angle, speed, !this._driveCorrect);
 
-    driveMotor.set(speed);
-    steerMotor.set(ControlMode.Position, targetPosition);
+    io.setDriveOutput(speed);
+    logDriveOutput(speed);
 
     // Use Dashboard items to help debug
     // SmartDashboard.putNumber("Incoming Angle", angle);
@@ -169,11 +167,62 @@ public class SwerveModule extends SubsystemBase {
   }
 
   
+  /*
+      Command the steer motor to angle and return speed, negated if the wheel was
+      reversed instead. Speed can be in any unit.
+  */
+  private double steerTo(double angle, double speed, boolean allowReverse) {
+    SwerveMath.optimizeSteer(steerPositionSample, angle, speed, allowReverse, encoderCountPerRotation,
+        steerResult);
+    double targetPosition = steerResult[SwerveMath.STEER_TARGET_POSITION];
+    if (!(Math.abs(targetPosition - lastSteerTarget) < STEER_SETPOINT_DEADBAND)) {
+      io.setSteerPosition(targetPosition);
+      lastSteerTarget = targetPosition;
+      steerSetpointsSent++;
+    }
+    if (steerTargetLog >= 0) {
+      DataLogger.set(steerTargetLog, lastSteerTarget);
+    }
+    return steerResult[SwerveMath.STEER_SPEED];
+  }
+
+  /*
+      Publish the number of steer setpoints sent in the last second.
+  */
+  private void updateSteerSetpointRate() {
+    double elapsed = sampleTimestamp - steerSetpointsWindowStart;
+    if (elapsed >= 1.0) {
+      if (steerSetpointsSignal != null) {
+        steerSetpointsSignal.set(steerSetpointsSent / elapsed);
+      }
+      steerSetpointsSent = 0;
+      steerSetpointsWindowStart = sampleTimestamp;
+    }
+  }
+
+  /*
+      Read every sensor on the module once. Called at the start of each robot loop.
+  */
+  public void refreshSensors() {
+    steerPositionSample = io.getSteerPosition();
+    drivePositionSample = io.getDrivePosition();
+    driveVelocitySample = io.getDriveVelocity();
+    sampleTimestamp = Timer.getFPGATimestamp();
+    updateSteerSetpointRate();
+  }
+
+  /*
+      FPGA timestamp in seconds of the last refreshSensors() call.
+  */
+  public double getSampleTimestamp() {
+    return sampleTimestamp;
+  }
+
   /*
       Get the built in Spark/Neo Drive motor encoder position. Value is in motor revolutions.
   */
   public double getDriveEncoder() {
-    return driveMotorEncoder.getPosition();
+    return drivePositionSample;
   }
   
   /*
@@ -181,94 +230,153 @@ public class SwerveModule extends SubsystemBase {
       motor revolutions.
   */
   public void setDriveEncoder(double position) {
-    driveMotorEncoder.setPosition(position);
+    io.setDrivePosition(position);
+    drivePositionSample = position;
   }
   
   public double getDriveVelocity() {
-    return driveMotorEncoder.getVelocity();
+    return driveVelocitySample;
   }
 
   /*
       Set the drive motor speed from -1 to 1
   */
   public void setDriveSpeed(double speed) {
-    driveMotor.set(speed);
+    io.setDriveOutput(speed);
+    logDriveOutput(speed);
   }
   
   /*
       Get the drive motor speed.
   */
   public double getDriveSpeed() {
-    return driveMotor.get();
+    return io.getDriveOutput();
   }
 
   public void stopDriveMotor() {
-    driveMotor.stopMotor();
+    io.stopDrive();
+    logDriveOutput(0);
+  }
+
+  private void logDriveOutput(double output) {
+    if (driveOutputLog >= 0) {
+      DataLogger.set(driveOutputLog, output);
+    }
   }
 
   public double getSteerEncoder(){
-    double curPosition = steerMotor.getSelectedSensorPosition(0);
-    return curPosition;
+    return steerPositionSample;
   }
   
   public double getSteerEncDeg(){
-    return (steerMotor.getSelectedSensorPosition() * 360.0 / this.encoderCountPerRotation) % 360.0;
+    return MathUtil.inputModulus(steerPositionSample * 360.0 / this.encoderCountPerRotation, 0.0, 360.0);
   }
   
   public double getTurningPosition() {
-    double steerEncoderRaw = getSteerEncoder();
+    return toTurningPosition(steerPositionSample);
+  }
+
+  private double toTurningPosition(double steerEncoderRaw) {
     double turningEncoder = (steerEncoderRaw / this.encoderCountPerRotation) * 2 * Math.PI;
     return -turningEncoder; //Invert Encoder for odometry as wpilib treats encoders backwards.
   }
 
   public void resetEncoders() {
-    driveMotorEncoder.setPosition(0);
+    io.setDrivePosition(0);
+    drivePositionSample = 0;
   }
 
+  /*
+      The state and position objects are reused on every call and the angle comes from
+      STEER_ROTATIONS, so reading them each loop does not create garbage.
+      getState() is used by the main loop and reads the per loop sensor samples.
+      getPosition() is used by the odometry thread, which runs faster than the main loop,
+      so it reads the motor controllers directly.
+  */
   public SwerveModuleState getState() {
-    return new SwerveModuleState(getDriveVelocity(), new Rotation2d(getTurningPosition()));
+    moduleState.speedMetersPerSecond = getDriveVelocity();
+    moduleState.angle = toRotation(steerPositionSample);
+    return moduleState;
   }
 
   public SwerveModulePosition getPosition() {
-    return new SwerveModulePosition(getDriveEncoder(), new Rotation2d(getTurningPosition()));
+    modulePosition.distanceMeters = io.getDrivePosition();
+    modulePosition.angle = toRotation(io.getSteerPosition());
+    return modulePosition;
+  }
+
+  /*
+      Module angle for a raw steer encoder reading, rounded to the nearest count. The
+      encoder is continuous, so the reading is wrapped into one rotation first.
+  */
+  private static Rotation2d toRotation(double steerEncoderRaw) {
+    return STEER_ROTATIONS[Math.floorMod(Math.round(steerEncoderRaw), STEER_COUNTS_PER_ROTATION)];
   }
   
   public void setDesiredState(SwerveModuleState state) {
-    if (Math.abs(state.speedMetersPerSecond) < 0.001) {
+    setDesiredState(state.speedMetersPerSecond, state.angle.getDegrees());
+  }
+
+  /*
+      Same as setDesiredState(SwerveModuleState) with the speed in meters per second and
+      the angle in degrees, for callers that work in primitives. steerTo reverses the wheel instead of turning
+      more than 90 degrees, the same as SwerveModuleState.optimize.
+  */
+  public void setDesiredState(double speedMetersPerSecond, double steerMotorAngle) {
+    if (Math.abs(speedMetersPerSecond) < 0.001) {
         stop();
         return;
     }
-    state = SwerveModuleState.optimize(state, getState().angle);
-    double driveMotorSpeed = state.speedMetersPerSecond / DriveConstants.FrameConstants.kPhysicalMaxSpeedMetersPerSecond;
-    double steerMotorAngle = state.angle.getDegrees();
-    setSwerve(steerMotorAngle, driveMotorSpeed, false);
+    if (!ModuleConstants.kDriveVelocityControl) {
+      double driveMotorSpeed = speedMetersPerSecond / DriveConstants.FrameConstants.kPhysicalMaxSpeedMetersPerSecond;
+      setSwerve(steerMotorAngle, driveMotorSpeed, false);
+      return;
+    }
+
+    /*
+        Closed loop: the Spark Max holds the wheel speed in meters per second, so it no
+        longer depends on the battery voltage or the load. The feedforward supplies
+        most of the voltage and the Spark Max PID only corrects the remaining error.
+    */
+    this._driveCorrect = false;
+    double velocity = steerTo(steerMotorAngle, speedMetersPerSecond, true);
+    io.setDriveVelocity(velocity, driveFeedforward.calculate(velocity));
+    if (velocitySetpointLog >= 0) {
+      DataLogger.set(velocitySetpointLog, velocity);
+    }
   } 
 
   public void stop() {
-    driveMotor.set(0);
+    io.setDriveOutput(0);
+    logDriveOutput(0);
   }
 
   public void driveMotorRamp(boolean enableRamp){
     if (enableRamp) {
-      driveMotor.setOpenLoopRampRate(RAMP_RATE);
+      io.setDriveRampRate(RAMP_RATE);
     }
     else {
-      driveMotor.setOpenLoopRampRate(0);
+      io.setDriveRampRate(0);
     }
   }
 
   // Set Drive Mode
   public void setDriveMode(IdleMode idleMode) {
-    driveMotor.setIdleMode(idleMode);
+    io.setDriveIdleMode(idleMode);
   }
 
   // Get Drvie Mode
   public IdleMode getDriveMode() {
-    return driveMotor.getIdleMode();
+    return io.getDriveIdleMode();
   }
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
   }
+
+  @Override
+  public void simulationPeriodic() {
+    io.updateSimulation(TimedRobot.kDefaultPeriod);
+  }
 }
@@ -0,0 +1,58 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax.IdleMode;
+
+/*
+    Hardware interface for one swerve module. SwerveModule only talks to the motors
+    and encoders through this, so the module control code can run against the real
+    motor controllers, a simulation or recorded data.
+
+    Units follow the real hardware: the steer position is the raw TalonSRX analog
+    encoder value (1024 counts per rotation, continuous), the drive position is in
+    meters and the drive velocity in meters per second.
+*/
+public interface SwerveModuleIO {
+
+    double getSteerPosition();
+
+    double getDrivePosition();
+
+    double getDriveVelocity();
+
+    /*
+        Set the position value of the drive encoder, used to reset it.
+    */
+    void setDrivePosition(double position);
+
+    /*
+        Drive motor output from -1 to 1.
+    */
+    void setDriveOutput(double output);
+
+    double getDriveOutput();
+
+    /*
+        Closed loop drive velocity in meters per second, with feedforwardVolts added to
+        the output of the motor controller's velocity loop.
+    */
+    void setDriveVelocity(double metersPerSecond, double feedforwardVolts);
+
+    void stopDrive();
+
+    /*
+        Closed loop steer target as a raw steer encoder position.
+    */
+    void setSteerPosition(double position);
+
+    void setDriveIdleMode(IdleMode idleMode);
+
+    IdleMode getDriveIdleMode();
+
+    void setDriveRampRate(double secondsToFull);
+
+    /*
+        Advance the model by dtSeconds. Only simulated implementations do anything here.
+    */
+    default void updateSimulation(double dtSeconds) {
+    }
+}
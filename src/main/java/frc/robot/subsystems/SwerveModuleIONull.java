@@ -0,0 +1,71 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax.IdleMode;
+
+/*
+    Swerve module with nothing attached. The sensors read zero and the outputs are
+    kept but go nowhere. JitWarmup drives a module on this alongside one on
+    SwerveModuleIOSim, so the io call sites in SwerveModule see more than one IO class
+    without ever commanding the real motor controllers.
+*/
+public class SwerveModuleIONull implements SwerveModuleIO {
+
+    private double driveOutput = 0.0;
+    private IdleMode idleMode = IdleMode.kCoast;
+
+    @Override
+    public double getSteerPosition() {
+        return 0.0;
+    }
+
+    @Override
+    public double getDrivePosition() {
+        return 0.0;
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return 0.0;
+    }
+
+    @Override
+    public void setDrivePosition(double position) {
+    }
+
+    @Override
+    public void setDriveOutput(double output) {
+        driveOutput = output;
+    }
+
+    @Override
+    public double getDriveOutput() {
+        return driveOutput;
+    }
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+    }
+
+    @Override
+    public void stopDrive() {
+        driveOutput = 0.0;
+    }
+
+    @Override
+    public void setSteerPosition(double position) {
+    }
+
+    @Override
+    public void setDriveIdleMode(IdleMode idleMode) {
+        this.idleMode = idleMode;
+    }
+
+    @Override
+    public IdleMode getDriveIdleMode() {
+        return idleMode;
+    }
+
+    @Override
+    public void setDriveRampRate(double secondsToFull) {
+    }
+}
@@ -0,0 +1,185 @@
+package frc.robot.subsystems;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.ctre.phoenix.motorcontrol.can.TalonSRXConfiguration;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMax.SoftLimitDirection;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Utility.CanStatusFrames;
+import frc.robot.Utility.DeviceConfigurator;
+
+/*
+    Swerve module hardware: a Spark Max/Neo drive motor and a TalonSRX steer motor
+    with an analog encoder and the position PID running on the Talon. The drive
+    motor runs either open loop or on the Spark Max velocity PID. Both motors are
+    configured in the background by DeviceConfigurator.
+*/
+public class SwerveModuleIOReal implements SwerveModuleIO {
+
+    //private static final double STEER_P = 3.0, STEER_I = 0.0, STEER_D = 0.1;
+    static final double STEER_P = 6.0, STEER_I = 0.0, STEER_D = 0.2;
+    static final int STEER_ALLOWABLE_ERROR = 2;
+
+    private final TalonSRX steerMotor;
+    private final CANSparkMax driveMotor;
+    private final RelativeEncoder driveMotorEncoder; //Set up integrated Drive motor encoder in Spark Max/Neo
+    private final SparkMaxPIDController driveController;
+
+    public SwerveModuleIOReal(int steerNum, int driveNum, boolean invertDrive, boolean invertSteer) {
+        driveMotor = new CANSparkMax(driveNum, MotorType.kBrushless);
+        steerMotor = new TalonSRX(steerNum);
+        driveMotorEncoder = driveMotor.getEncoder(); //Create the built in motor encoders
+        driveController = driveMotor.getPIDController();
+
+        // Configured on the DeviceConfigurator threads, alongside the other modules
+        DeviceConfigurator.submit("Swerve drive " + driveNum, () -> configureDrive(invertDrive));
+        DeviceConfigurator.submit("Swerve steer " + steerNum, () -> configureSteer(invertSteer));
+    }
+
+    private void configureDrive(boolean invertDrive) {
+        String name = "Swerve drive " + driveMotor.getDeviceId();
+
+        // The Spark Max has no call to read its whole configuration back, so it is
+        // reset and set up from scratch every boot, which only changes the settings it
+        // runs with. burnFlash is slow and wears the flash, so it is only done when the
+        // settings it has now, the ones it comes back with after a brownout, are not ours.
+        boolean stored = driveMotor.getInverted() == invertDrive
+            && driveMotor.getIdleMode() == IdleMode.kBrake
+            && DeviceConfigurator.matches(driveMotor.getOpenLoopRampRate(), SwerveModule.RAMP_RATE)
+            && driveMotor.getClosedLoopRampRate() == 0
+            && !driveMotor.isFollower()
+            && !driveMotor.isSoftLimitEnabled(SoftLimitDirection.kForward)
+            && !driveMotor.isSoftLimitEnabled(SoftLimitDirection.kReverse)
+            && DeviceConfigurator.matches(driveMotorEncoder.getPositionConversionFactor(), DriveConstants.ModuleConstants.kDriveEncoderRot2Meter)
+            && DeviceConfigurator.matches(driveMotorEncoder.getVelocityConversionFactor(), DriveConstants.ModuleConstants.kDriveEncoderRPM2MeterPerSec)
+            && DeviceConfigurator.matches(driveController.getP(), DriveConstants.ModuleConstants.kDriveVelocityP)
+            && driveController.getI() == 0
+            && driveController.getD() == 0
+            && driveController.getFF() == 0
+            && driveController.getIZone() == 0
+            && driveController.getOutputMin() == -1
+            && driveController.getOutputMax() == 1;
+
+        DeviceConfigurator.rev(name, "restoreFactoryDefaults", driveMotor::restoreFactoryDefaults);
+        driveMotor.setInverted(invertDrive);// setInverted reverses the both the motor and the encoder direction.
+        DeviceConfigurator.rev(name, "ramp rate", () -> driveMotor.setOpenLoopRampRate(SwerveModule.RAMP_RATE));// This provides a motor ramp up time to prevent brown outs.
+        //driveMotor.setIdleMode(IdleMode.kCoast);
+        DeviceConfigurator.rev(name, "idle mode", () -> driveMotor.setIdleMode(IdleMode.kBrake));
+        DeviceConfigurator.rev(name, "position conversion", () -> driveMotorEncoder.setPositionConversionFactor(DriveConstants.ModuleConstants.kDriveEncoderRot2Meter));
+        DeviceConfigurator.rev(name, "velocity conversion", () -> driveMotorEncoder.setVelocityConversionFactor(DriveConstants.ModuleConstants.kDriveEncoderRPM2MeterPerSec));
+
+        // Velocity loop in meters per second, through the conversion factor above. The
+        // feedforward is passed in volts with each setpoint, so kFF stays zero.
+        DeviceConfigurator.rev(name, "feedback device", () -> driveController.setFeedbackDevice(driveMotorEncoder));
+        DeviceConfigurator.rev(name, "velocity P", () -> driveController.setP(DriveConstants.ModuleConstants.kDriveVelocityP));
+        DeviceConfigurator.rev(name, "velocity I", () -> driveController.setI(0));
+        DeviceConfigurator.rev(name, "velocity D", () -> driveController.setD(0));
+        DeviceConfigurator.rev(name, "velocity FF", () -> driveController.setFF(0));
+        DeviceConfigurator.rev(name, "output range", () -> driveController.setOutputRange(-1, 1));
+
+        // The current limit cannot be read back and the status frame periods are not kept
+        // in flash, so these are sent every boot
+        DeviceConfigurator.rev(name, "current limit", () -> driveMotor.setSmartCurrentLimit(55));
+        DeviceConfigurator.rev(name, "encoder position", () -> driveMotorEncoder.setPosition(0));
+        CanStatusFrames.configure(driveMotor, CanStatusFrames.Device.SWERVE_DRIVE);
+
+        if (stored) {
+            DeviceConfigurator.flashSkipped();
+        } else {
+            DeviceConfigurator.rev(name, "burnFlash", driveMotor::burnFlash);// Set configuration values to flash memory in Spark Max to prevent errors.
+        }
+    }
+
+    private void configureSteer(boolean invertSteer) {
+        String name = "Swerve steer " + steerMotor.getDeviceID();
+
+        // Every setting, the factory defaults plus ours, written in one go every boot, so
+        // nothing left on the Talon from before survives. The Talon keeps its settings
+        // without a separate flash write.
+        TalonSRXConfiguration config = new TalonSRXConfiguration();
+        config.primaryPID.selectedFeedbackSensor = FeedbackDevice.Analog;
+        // Count on past 1023 instead of jumping back to 0, SwerveMath.optimizeSteer relies on it
+        config.feedbackNotContinuous = false;
+        config.slot0.kP = STEER_P;
+        config.slot0.kI = STEER_I;
+        config.slot0.kD = STEER_D;
+        config.slot0.integralZone = 100;
+        config.slot0.allowableClosedloopError = STEER_ALLOWABLE_ERROR;
+        DeviceConfigurator.ctre(name, "configAllSettings", () -> steerMotor.configAllSettings(config, DeviceConfigurator.CAN_TIMEOUT_MS));
+
+        steerMotor.setNeutralMode(NeutralMode.Brake);
+        CanStatusFrames.configure(steerMotor, CanStatusFrames.Device.SWERVE_STEER);
+        steerMotor.setInverted(invertSteer); // setInverted reverses the both the motor and the encoder direction.
+        steerMotor.setSensorPhase(true); // setSensorPhase is used to reverse just the encoder direction and not the motor direction.
+    }
+
+    @Override
+    public double getSteerPosition() {
+        return steerMotor.getSelectedSensorPosition(0);
+    }
+
+    @Override
+    public double getDrivePosition() {
+        return driveMotorEncoder.getPosition();
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return driveMotorEncoder.getVelocity();
+    }
+
+    @Override
+    public void setDrivePosition(double position) {
+        driveMotorEncoder.setPosition(position);
+    }
+
+    @Override
+    public void setDriveOutput(double output) {
+        driveMotor.set(output);
+    }
+
+    @Override
+    public double getDriveOutput() {
+        return driveMotor.get();
+    }
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+        driveController.setReference(metersPerSecond, ControlType.kVelocity, 0, feedforwardVolts, ArbFFUnits.kVoltage);
+    }
+
+    @Override
+    public void stopDrive() {
+        driveMotor.stopMotor();
+    }
+
+    @Override
+    public void setSteerPosition(double position) {
+        steerMotor.set(ControlMode.Position, position);
+    }
+
+    @Override
+    public void setDriveIdleMode(IdleMode idleMode) {
+        driveMotor.setIdleMode(idleMode);
+    }
+
+    @Override
+    public IdleMode getDriveIdleMode() {
+        return driveMotor.getIdleMode();
+    }
+
+    @Override
+    public void setDriveRampRate(double secondsToFull) {
+        driveMotor.setOpenLoopRampRate(secondsToFull);
+    }
+}
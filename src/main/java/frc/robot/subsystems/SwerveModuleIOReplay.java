@@ -0,0 +1,100 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax.IdleMode;
+
+import frc.robot.Utility.LogReplaySource;
+
+/*
+    Swerve module that reports the sensor values recorded by Drive in a DataLogger file
+    and keeps the outputs it is given, so LogReplay can compare them with the recorded
+    outputs.
+*/
+public class SwerveModuleIOReplay implements SwerveModuleIO {
+
+    private final LogReplaySource source;
+    private final int steerPositionSignal;
+    private final int drivePositionSignal;
+    private final int driveVelocitySignal;
+
+    private double driveOutput = 0.0;
+    private double driveVelocity = 0.0;
+    private double steerTarget = 0.0;
+    private IdleMode idleMode = IdleMode.kCoast;
+
+    /*
+        name is the module name used in the log, FL, BL, FR or BR.
+    */
+    public SwerveModuleIOReplay(LogReplaySource source, String name) {
+        this.source = source;
+        steerPositionSignal = source.require("Drive/" + name + "/Steer Position");
+        drivePositionSignal = source.require("Drive/" + name + "/Drive Position");
+        driveVelocitySignal = source.require("Drive/" + name + "/Speed");
+    }
+
+    @Override
+    public double getSteerPosition() {
+        return source.get(steerPositionSignal);
+    }
+
+    @Override
+    public double getDrivePosition() {
+        return source.get(drivePositionSignal);
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return source.get(driveVelocitySignal);
+    }
+
+    @Override
+    public void setDrivePosition(double position) {
+        // The recorded encoder is what it is
+    }
+
+    @Override
+    public void setDriveOutput(double output) {
+        driveOutput = output;
+    }
+
+    @Override
+    public double getDriveOutput() {
+        return driveOutput;
+    }
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+        driveVelocity = metersPerSecond;
+    }
+
+    public double getDriveVelocitySetpoint() {
+        return driveVelocity;
+    }
+
+    @Override
+    public void stopDrive() {
+        driveOutput = 0.0;
+    }
+
+    @Override
+    public void setSteerPosition(double position) {
+        steerTarget = position;
+    }
+
+    public double getSteerTarget() {
+        return steerTarget;
+    }
+
+    @Override
+    public void setDriveIdleMode(IdleMode idleMode) {
+        this.idleMode = idleMode;
+    }
+
+    @Override
+    public IdleMode getDriveIdleMode() {
+        return idleMode;
+    }
+
+    @Override
+    public void setDriveRampRate(double secondsToFull) {
+    }
+}
@@ -0,0 +1,175 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax.IdleMode;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.Constants.DriveConstants.ModuleConstants;
+
+/*
+    Physics model of a swerve module for running the robot code off the robot.
+
+    Drive: a Neo through the 6.429:1 gearbox pushing a quarter of the robot mass, with
+    the Spark Max open loop ramp, velocity loop, current limit and brake/coast behaviour.
+    Steer: the TalonSRX position loop on the analog encoder, run at the Talon's 1ms
+    rate with the same gains as SwerveModuleIOReal, driving a CIM and gearbox.
+
+    Modules are modelled independently, so wheel scrub and the coupling through the
+    frame are ignored. Sensor values are volatile because the odometry thread reads them.
+*/
+public class SwerveModuleIOSim implements SwerveModuleIO {
+
+    private static final double NOMINAL_VOLTAGE = 12.0;
+    private static final double TALON_PERIOD = 0.001;
+
+    private static final DCMotor DRIVE_MOTOR = DCMotor.getNEO(1);
+    private static final double DRIVE_GEARING = 1.0 / ModuleConstants.kDriveMotorGearRatio;
+    private static final double WHEEL_RADIUS = ModuleConstants.kWheelDiameterMeters / 2.0;
+    private static final double ROBOT_MASS_KG = 56.0; // With battery and bumpers
+    private static final double DRIVE_INERTIA = ROBOT_MASS_KG / 4.0 * WHEEL_RADIUS * WHEEL_RADIUS;
+    private static final double DRIVE_CURRENT_LIMIT = 55.0;
+    private static final double COAST_TIME_CONSTANT = 1.5; // seconds
+
+    // The steer motor and gearbox are estimates, tune if the simulated steer response
+    // does not match the robot
+    private static final DCMotor STEER_MOTOR = DCMotor.getCIM(1);
+    private static final double STEER_GEARING = 60.0;
+    private static final double STEER_INERTIA = 0.004;
+    private static final double STEER_COUNTS_PER_ROTATION = 1024.0;
+
+    private final DCMotorModel drive = new DCMotorModel(DRIVE_MOTOR, DRIVE_GEARING, DRIVE_INERTIA);
+    private final DCMotorModel steer = new DCMotorModel(STEER_MOTOR, STEER_GEARING, STEER_INERTIA);
+
+    private volatile double steerPosition = 0.0;
+    private volatile double drivePosition = 0.0;
+    private volatile double driveVelocity = 0.0;
+    private double drivePositionOffset = 0.0;
+
+    private double driveOutput = 0.0;
+    private double appliedDriveOutput = 0.0;
+    private double rampRate = SwerveModule.RAMP_RATE;
+    private IdleMode idleMode = IdleMode.kBrake;
+
+    private boolean velocityControl = false;
+    private double velocitySetpoint = 0.0;
+    private double feedforwardVolts = 0.0;
+
+    private double steerTarget = 0.0;
+    private double lastSteerError = 0.0;
+
+    @Override
+    public double getSteerPosition() {
+        return steerPosition;
+    }
+
+    @Override
+    public double getDrivePosition() {
+        return drivePosition;
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return driveVelocity;
+    }
+
+    @Override
+    public void setDrivePosition(double position) {
+        drivePositionOffset = position - drive.getPosition() * WHEEL_RADIUS;
+        drivePosition = position;
+    }
+
+    @Override
+    public void setDriveOutput(double output) {
+        velocityControl = false;
+        driveOutput = MathUtil.clamp(output, -1, 1);
+    }
+
+    @Override
+    public double getDriveOutput() {
+        return driveOutput;
+    }
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+        velocityControl = true;
+        velocitySetpoint = metersPerSecond;
+        this.feedforwardVolts = feedforwardVolts;
+    }
+
+    @Override
+    public void stopDrive() {
+        velocityControl = false;
+        driveOutput = 0.0;
+        appliedDriveOutput = 0.0;
+    }
+
+    @Override
+    public void setSteerPosition(double position) {
+        steerTarget = position;
+    }
+
+    @Override
+    public void setDriveIdleMode(IdleMode idleMode) {
+        this.idleMode = idleMode;
+    }
+
+    @Override
+    public IdleMode getDriveIdleMode() {
+        return idleMode;
+    }
+
+    @Override
+    public void setDriveRampRate(double secondsToFull) {
+        rampRate = secondsToFull;
+    }
+
+    @Override
+    public void updateSimulation(double dtSeconds) {
+        int steps = Math.max(1, (int) Math.round(dtSeconds / TALON_PERIOD));
+        double step = dtSeconds / steps;
+        for (int i = 0; i < steps; i++) {
+            updateDrive(step);
+            updateSteer(step);
+        }
+
+        drivePosition = drive.getPosition() * WHEEL_RADIUS + drivePositionOffset;
+        driveVelocity = drive.getVelocity() * WHEEL_RADIUS;
+        steerPosition = steer.getPosition() / (2 * Math.PI) * STEER_COUNTS_PER_ROTATION;
+    }
+
+    private void updateDrive(double step) {
+        if (velocityControl) {
+            // Spark Max velocity loop, the open loop ramp does not apply to it
+            double error = velocitySetpoint - drive.getVelocity() * WHEEL_RADIUS;
+            driveOutput = MathUtil.clamp(feedforwardVolts / NOMINAL_VOLTAGE
+                + ModuleConstants.kDriveVelocityP * error, -1, 1);
+            appliedDriveOutput = driveOutput;
+        } else if (rampRate > 0) {
+            double maxChange = step / rampRate;
+            appliedDriveOutput += MathUtil.clamp(driveOutput - appliedDriveOutput, -maxChange, maxChange);
+        } else {
+            appliedDriveOutput = driveOutput;
+        }
+
+        if (appliedDriveOutput == 0.0 && idleMode == IdleMode.kCoast) {
+            drive.coast(step, COAST_TIME_CONSTANT);
+        } else {
+            drive.update(drive.limitVoltage(appliedDriveOutput * NOMINAL_VOLTAGE, DRIVE_CURRENT_LIMIT), step);
+        }
+    }
+
+    /*
+        Talon position loop in native units: output = (kP * error + kD * change in error) / 1023
+    */
+    private void updateSteer(double step) {
+        double position = steer.getPosition() / (2 * Math.PI) * STEER_COUNTS_PER_ROTATION;
+        double error = steerTarget - position;
+        double output = 0.0;
+        if (Math.abs(error) > SwerveModuleIOReal.STEER_ALLOWABLE_ERROR) {
+            output = (SwerveModuleIOReal.STEER_P * error
+                + SwerveModuleIOReal.STEER_D * (error - lastSteerError)) / 1023.0;
+        }
+        lastSteerError = error;
+        steer.update(MathUtil.clamp(output, -1, 1) * NOMINAL_VOLTAGE, step);
+    }
+}
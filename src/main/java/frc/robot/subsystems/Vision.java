@@ -0,0 +1,200 @@
+package frc.robot.subsystems;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonCamera;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.SimVisionSystem;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.VisionConstants;
+
+/*
+    AprilTag localization from a PhotonVision camera. Each new frame is turned into a
+    robot pose by PhotonPoseEstimator, checked, given standard deviations from how
+    many tags were seen and how far away they were, and passed to
+    Drive.addVisionMeasurement() with the time the frame was taken.
+
+    Reading the camera and solving the pose happens on the "Vision" Notifier thread,
+    so a slow frame or a NetworkTables hiccup never holds up the 20ms loop. The
+    worker writes each good measurement into one of three preallocated Measurement
+    objects and swaps it into the shared slot. periodic() swaps its own object back
+    in exchange and hands the measurement to Drive if it is newer than the last one.
+    Neither side ever waits for the other, nothing is allocated per frame, and a
+    measurement the loop has not picked up yet is simply replaced by the next one.
+
+    In simulation a SimVisionSystem stands in for the camera. It is fed the
+    simulated robot's true pose and publishes what the camera would see, so the
+    same code runs with no camera attached.
+*/
+public class Vision extends SubsystemBase {
+
+    private static Vision instance;
+
+    /*
+        One vision pose, filled in by the worker. Each object is only ever touched by
+        the side that currently holds it.
+    */
+    private static class Measurement {
+        long sequence = 0;
+        double timestampSeconds;
+        double x;
+        double y;
+        double headingRadians;
+        double xyStdDev;
+        double headingStdDev;
+    }
+
+    private final Drive drive;
+    private final PhotonCamera camera;
+    private final AprilTagFieldLayout fieldLayout;
+    private final PhotonPoseEstimator poseEstimator;
+    private final SimVisionSystem simVision;
+    private final Notifier worker;
+
+    // Worker side
+    private Measurement writing = new Measurement();
+    private long sequence = 0;
+    private double lastTimestamp = 0;
+
+    // Main loop side
+    private Measurement reading = new Measurement();
+    private long lastSequence = 0;
+
+    // Newest measurement, or a stale one once the loop has swapped it out
+    private final AtomicReference<Measurement> latest = new AtomicReference<>(new Measurement());
+
+    private Vision(Drive drive) {
+        this.drive = drive;
+        camera = new PhotonCamera(VisionConstants.kCameraName);
+
+        AprilTagFieldLayout layout;
+        try {
+            layout = AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile);
+        } catch (IOException e) {
+            DriverStation.reportError("Could not load the AprilTag field layout, vision is off", e.getStackTrace());
+            layout = null;
+        }
+        fieldLayout = layout;
+
+        if (fieldLayout != null) {
+            poseEstimator = new PhotonPoseEstimator(fieldLayout, PoseStrategy.CLOSEST_TO_REFERENCE_POSE, camera,
+                VisionConstants.kRobotToCamera);
+        } else {
+            poseEstimator = null;
+        }
+
+        if (fieldLayout != null && RobotBase.isSimulation()) {
+            simVision = new SimVisionSystem(VisionConstants.kCameraName, VisionConstants.kCameraDiagonalFovDegrees,
+                VisionConstants.kRobotToCamera, VisionConstants.kSimMaxRangeMeters, VisionConstants.kCameraWidth,
+                VisionConstants.kCameraHeight, VisionConstants.kSimMinTargetAreaPixels);
+            simVision.addVisionTargets(fieldLayout);
+        } else {
+            simVision = null;
+        }
+
+        worker = new Notifier(this::processFrame);
+        worker.setName("Vision");
+        if (poseEstimator != null) {
+            worker.startPeriodic(VisionConstants.kVisionPeriodSeconds);
+        }
+    }
+
+    public static Vision getInstance(Drive drive) {
+        if (instance == null) {
+            instance = new Vision(drive);
+        }
+        return instance;
+    }
+
+    /*
+        Solve the newest camera frame, if there is one, and publish it. Runs on the
+        worker thread.
+    */
+    private void processFrame() {
+        // A single tag solves to two poses, keep the one nearest odometry
+        poseEstimator.setReferencePose(drive.getPose());
+        Optional<EstimatedRobotPose> result = poseEstimator.update();
+        if (result.isEmpty() || result.get().timestampSeconds == lastTimestamp) {
+            return;
+        }
+        EstimatedRobotPose estimate = result.get();
+        lastTimestamp = estimate.timestampSeconds;
+
+        List<PhotonTrackedTarget> targets = estimate.targetsUsed;
+        int tagCount = targets.size();
+        if (tagCount == 0 || !onField(estimate.estimatedPose)) {
+            return;
+        }
+        double totalDistance = 0;
+        for (int i = 0; i < tagCount; i++) {
+            totalDistance += targets.get(i).getBestCameraToTarget().getTranslation().getNorm();
+        }
+        double averageDistance = totalDistance / tagCount;
+        if (averageDistance > VisionConstants.kMaxTagDistanceMeters) {
+            return;
+        }
+        if (tagCount == 1 && targets.get(0).getPoseAmbiguity() > VisionConstants.kMaxAmbiguity) {
+            return;
+        }
+
+        // Standard deviations grow with the square of the distance to the tags
+        double scale = 1 + averageDistance * averageDistance;
+        Measurement measurement = writing;
+        measurement.sequence = ++sequence;
+        measurement.timestampSeconds = estimate.timestampSeconds;
+        measurement.x = estimate.estimatedPose.getX();
+        measurement.y = estimate.estimatedPose.getY();
+        measurement.headingRadians = estimate.estimatedPose.getRotation().getZ();
+        if (tagCount > 1) {
+            measurement.xyStdDev = VisionConstants.kMultiTagStdDevMeters * scale / tagCount;
+            measurement.headingStdDev = VisionConstants.kMultiTagStdDevRadians;
+        } else {
+            measurement.xyStdDev = VisionConstants.kSingleTagStdDevMeters * scale;
+            measurement.headingStdDev = VisionConstants.kSingleTagStdDevRadians;
+        }
+
+        // Whatever comes back is either the loop's old object or a measurement it
+        // never picked up, both are free to write over next time
+        writing = latest.getAndSet(measurement);
+    }
+
+    /*
+        Within the field and near the floor, anything else is a bad solve.
+    */
+    private boolean onField(Pose3d pose) {
+        return pose.getX() >= 0 && pose.getX() <= fieldLayout.getFieldLength()
+            && pose.getY() >= 0 && pose.getY() <= fieldLayout.getFieldWidth()
+            && Math.abs(pose.getZ()) <= 0.5;
+    }
+
+    @Override
+    public void periodic() {
+        reading = latest.getAndSet(reading);
+        if (reading.sequence <= lastSequence) {
+            return;
+        }
+        lastSequence = reading.sequence;
+        drive.addVisionMeasurement(reading.x, reading.y, reading.headingRadians, reading.timestampSeconds,
+            reading.xyStdDev, reading.headingStdDev);
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        if (simVision != null) {
+            simVision.processFrame(drive.getSimulatedPose());
+        }
+    }
+}
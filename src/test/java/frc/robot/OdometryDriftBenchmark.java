@@ -0,0 +1,178 @@
+package frc.robot;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Utility.ArcOdometry;
+
+/*
+    Desktop tool that measures how far the odometry drifts from where the robot
+    really went. It compares the wpilib SwerveDriveOdometry the drive used before
+    with ArcOdometry.
+
+    A robot is driven through some fast maneuvers in small steps of TRUTH_STEP
+    seconds. The exact wheel distances, steer angles and gyro yaw come from the
+    robot's true motion. They are sampled at the 20ms main loop rate and at the
+    odometry thread rate, fed to each integrator, and the position error is
+    recorded. No sensor noise or wheel slip is modeled, so all of the error comes
+    from the integration. OdometryDriftTest runs the spin maneuver and checks
+    ArcOdometry keeps its lead over SwerveDriveOdometry.
+
+    ./gradlew odometryDrift
+*/
+public final class OdometryDriftBenchmark {
+
+    private static final double TRUTH_STEP = 1e-5;
+    private static final double DURATION = 15.0;
+    private static final double[] PERIODS = { 0.020, DriveConstants.kOdometryPeriodSeconds };
+
+    private static final double HALF_BASE = DriveConstants.FrameConstants.kWheelBase / 2;
+    private static final double HALF_TRACK = DriveConstants.FrameConstants.kTrackWidth / 2;
+    // Odometry order, the same as kDriveKinematics
+    private static final double[] MODULE_X = { HALF_BASE, HALF_BASE, -HALF_BASE, -HALF_BASE };
+    private static final double[] MODULE_Y = { HALF_TRACK, -HALF_TRACK, HALF_TRACK, -HALF_TRACK };
+    private static final int MODULES = MODULE_X.length;
+
+    /*
+        Field relative velocity (vx, vy) and turn rate of the robot at time t.
+    */
+    private interface Maneuver {
+        void velocity(double t, double[] out);
+    }
+
+    static final int SPIN_WHILE_DRIVING = 0;
+
+    // Columns of the error arrays measure() returns
+    static final int SWERVE_DRIVE_ODOMETRY = 0;
+    static final int ARC_ODOMETRY = 1;
+    static final int ARC_ODOMETRY_SUBSTEPS = 2;
+
+    private static final String[] MANEUVER_NAMES = {
+        "Spin while driving, 4 m/s and 1 rev/s",
+        "Weave at 4 m/s, heading swinging +-90 deg",
+        "Arc at 3 m/s turning 2 rad/s",
+    };
+    private static final Maneuver[] MANEUVERS = {
+        (t, out) -> {
+            out[0] = 4.0 * Math.cos(0.4 * t);
+            out[1] = 4.0 * Math.sin(0.4 * t);
+            out[2] = 2 * Math.PI;
+        },
+        (t, out) -> {
+            out[0] = 4.0;
+            out[1] = 2.0 * Math.sin(2.0 * t);
+            out[2] = Math.PI * Math.cos(2.0 * t);
+        },
+        (t, out) -> {
+            out[0] = 3.0 * Math.cos(2.0 * t);
+            out[1] = 3.0 * Math.sin(2.0 * t);
+            out[2] = 2.0;
+        },
+    };
+
+    private OdometryDriftBenchmark() {}
+
+    public static void main(String... args) {
+        System.out.printf("%-45s %8s %-22s %12s %12s%n", "Maneuver", "Period", "Integrator", "Final error", "Max error");
+        for (int m = 0; m < MANEUVERS.length; m++) {
+            for (double period : PERIODS) {
+                double[][] errors = measure(m, period);
+                String[] integrators = { "SwerveDriveOdometry", "ArcOdometry",
+                    "ArcOdometry x" + DriveConstants.kOdometrySubsteps };
+                for (int i = 0; i < integrators.length; i++) {
+                    System.out.printf("%-45s %6.0fms %-22s %10.2fmm %10.2fmm%n", i == 0 ? MANEUVER_NAMES[m] : "",
+                        period * 1000, integrators[i], errors[0][i] * 1000, errors[1][i] * 1000);
+                }
+            }
+        }
+    }
+
+    /*
+        Drive maneuver sampled every period seconds and return the final and the
+        largest position error of each integrator in meters, as
+        { finalErrors, maxErrors } indexed by SWERVE_DRIVE_ODOMETRY, ARC_ODOMETRY and
+        ARC_ODOMETRY_SUBSTEPS.
+    */
+    static double[][] measure(int maneuverIndex, double period) {
+        Maneuver maneuver = MANEUVERS[maneuverIndex];
+        // True robot state and sensor readings
+        double x = 0;
+        double y = 0;
+        double heading = 0;
+        double[] distances = new double[MODULES];
+        double[] angles = new double[MODULES];
+        double[] velocity = new double[3];
+        moduleStates(maneuver, 0, heading, velocity, angles, null, 0);
+
+        SwerveDriveOdometry wpilib = new SwerveDriveOdometry(DriveConstants.FrameConstants.kDriveKinematics,
+            new Rotation2d(heading), positions(distances, angles));
+        ArcOdometry arc = new ArcOdometry(MODULE_X, MODULE_Y, 1);
+        ArcOdometry arcSubsteps = new ArcOdometry(MODULE_X, MODULE_Y, DriveConstants.kOdometrySubsteps);
+        arc.reset(0, 0, 0, heading, distances, angles);
+        arcSubsteps.reset(0, 0, 0, heading, distances, angles);
+
+        double[] maxError = new double[3];
+        double[] finalError = new double[3];
+        int stepsPerSample = (int) Math.round(period / TRUTH_STEP);
+        int steps = (int) Math.round(DURATION / TRUTH_STEP);
+        for (int step = 1; step <= steps; step++) {
+            // Midpoint integration of the true motion
+            double t = (step - 0.5) * TRUTH_STEP;
+            maneuver.velocity(t, velocity);
+            double midHeading = heading + velocity[2] * TRUTH_STEP / 2;
+            moduleStates(maneuver, t, midHeading, velocity, angles, distances, TRUTH_STEP);
+            x += velocity[0] * TRUTH_STEP;
+            y += velocity[1] * TRUTH_STEP;
+            heading += velocity[2] * TRUTH_STEP;
+
+            if (step % stepsPerSample != 0) {
+                continue;
+            }
+            // Steer angles at the sample time, not the middle of the last step
+            moduleStates(maneuver, step * TRUTH_STEP, heading, velocity, angles, null, 0);
+            Pose2d pose = wpilib.update(new Rotation2d(heading), positions(distances, angles));
+            arc.update(heading, distances, angles);
+            arcSubsteps.update(heading, distances, angles);
+
+            finalError[SWERVE_DRIVE_ODOMETRY] = Math.hypot(pose.getX() - x, pose.getY() - y);
+            finalError[ARC_ODOMETRY] = Math.hypot(arc.getX() - x, arc.getY() - y);
+            finalError[ARC_ODOMETRY_SUBSTEPS] = Math.hypot(arcSubsteps.getX() - x, arcSubsteps.getY() - y);
+            for (int i = 0; i < 3; i++) {
+                maxError[i] = Math.max(maxError[i], finalError[i]);
+            }
+        }
+        return new double[][] { finalError, maxError };
+    }
+
+    /*
+        Steer angle of each module for the motion at time t with the robot at heading,
+        and if distances is given, add the distance each wheel rolls in dt.
+    */
+    private static void moduleStates(Maneuver maneuver, double t, double heading, double[] velocity,
+            double[] angles, double[] distances, double dt) {
+        maneuver.velocity(t, velocity);
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        // Field velocity into the robot frame
+        double robotVx = velocity[0] * cos + velocity[1] * sin;
+        double robotVy = -velocity[0] * sin + velocity[1] * cos;
+        for (int i = 0; i < MODULES; i++) {
+            double moduleVx = robotVx - velocity[2] * MODULE_Y[i];
+            double moduleVy = robotVy + velocity[2] * MODULE_X[i];
+            angles[i] = Math.atan2(moduleVy, moduleVx);
+            if (distances != null) {
+                distances[i] += Math.hypot(moduleVx, moduleVy) * dt;
+            }
+        }
+    }
+
+    private static SwerveModulePosition[] positions(double[] distances, double[] angles) {
+        SwerveModulePosition[] positions = new SwerveModulePosition[MODULES];
+        for (int i = 0; i < MODULES; i++) {
+            positions[i] = new SwerveModulePosition(distances[i], new Rotation2d(angles[i]));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,39 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants.DriveConstants;
+
+/*
+    Runs the OdometryDriftBenchmark spin maneuver, driving at 4 m/s while spinning at
+    1 rev/s, and checks the claim made for ArcOdometry: that its worst position error
+    is far smaller than the end angle integration of SwerveDriveOdometry, at both the
+    odometry rate and the main loop rate. Only the ratio is checked, with plenty of
+    margin, so the test does not depend on the exact figures.
+*/
+public class OdometryDriftTest {
+
+    // At least this many times less drift than SwerveDriveOdometry
+    private static final double MIN_IMPROVEMENT = 50;
+
+    @Test
+    public void arcOdometryDriftsLessAtTheOdometryRate() {
+        assertDriftsLess(DriveConstants.kOdometryPeriodSeconds, OdometryDriftBenchmark.ARC_ODOMETRY);
+        assertDriftsLess(DriveConstants.kOdometryPeriodSeconds, OdometryDriftBenchmark.ARC_ODOMETRY_SUBSTEPS);
+    }
+
+    @Test
+    public void arcOdometryDriftsLessAtTheLoopRate() {
+        assertDriftsLess(0.020, OdometryDriftBenchmark.ARC_ODOMETRY_SUBSTEPS);
+    }
+
+    private static void assertDriftsLess(double period, int integrator) {
+        double[] maxErrors = OdometryDriftBenchmark.measure(OdometryDriftBenchmark.SPIN_WHILE_DRIVING, period)[1];
+        double wpilibError = maxErrors[OdometryDriftBenchmark.SWERVE_DRIVE_ODOMETRY];
+        double arcError = maxErrors[integrator];
+        assertTrue(arcError * MIN_IMPROVEMENT < wpilibError,
+            "ArcOdometry max error " + arcError + " against SwerveDriveOdometry " + wpilibError);
+    }
+}
@@ -0,0 +1,111 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/*
+    Checks that the code run on every robot loop allocates nothing once the JIT has
+    compiled it. The drive and a module run on their simulated IO, and the bytes the
+    test thread allocates are read from the JVM before and after a batch of loops.
+
+    When C2 gets to the loop depends on the machine, so the loop is warmed up in rounds
+    until the JIT has stopped compiling and a measured batch stays within
+    MAX_BYTES_PER_LOOP, or MAX_WARMUP_ROUNDS have gone by. That allowance is the same
+    byte of measurement noise jmhGate allows. The smallest object is 16 bytes, so an
+    allocation on every loop still fails the test.
+*/
+public class HotPathAllocationTest {
+
+    private static final int WARMUP_LOOPS_PER_ROUND = 10000;
+    private static final int MAX_WARMUP_ROUNDS = 30;
+    private static final int MEASURED_LOOPS = 1000;
+    private static final double MAX_BYTES_PER_LOOP = 1.0;
+
+    private static final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+
+    // The odometry thread publishes a new Pose2d on purpose, SimulatedDrive never starts it
+    private static final Drive drive = SimulatedDrive.DRIVE;
+
+    @Test
+    public void drivePeriodicDoesNotAllocate() {
+        Runnable loop = () -> {
+            drive.refreshSensors();
+            drive.periodic();
+        };
+        double bytes = bytesPerLoop(loop);
+        assertTrue(bytes <= MAX_BYTES_PER_LOOP, "Drive.periodic allocated " + bytes + " bytes per loop");
+    }
+
+    @Test
+    public void setDesiredStateDoesNotAllocate() {
+        SwerveModule module = new SwerveModule(new SwerveModuleIOSim());
+        SwerveModuleState[] states = new SwerveModuleState[16];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new SwerveModuleState(0.5 + i * 0.1, Rotation2d.fromDegrees(i * 45.0));
+        }
+        int[] index = new int[1];
+        Runnable loop = () -> {
+            module.refreshSensors();
+            module.setDesiredState(states[index[0]++ & (states.length - 1)]);
+            module.getState();
+            module.getPosition();
+        };
+        double bytes = bytesPerLoop(loop);
+        assertTrue(bytes <= MAX_BYTES_PER_LOOP, "SwerveModule.setDesiredState allocated " + bytes + " bytes per loop");
+    }
+
+    /*
+        Bytes allocated per run of loop once it has been warmed up, see the class comment.
+    */
+    private static double bytesPerLoop(Runnable loop) {
+        double bytes = Double.NaN;
+        long compilationMillis = compilationMillis();
+        for (int round = 0; round < MAX_WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < WARMUP_LOOPS_PER_ROUND; i++) {
+                loop.run();
+            }
+            bytes = (double) allocatedBytes(loop) / MEASURED_LOOPS;
+            long lastCompilationMillis = compilationMillis;
+            compilationMillis = compilationMillis();
+            if (bytes <= MAX_BYTES_PER_LOOP && compilationMillis == lastCompilationMillis) {
+                break;
+            }
+        }
+        return bytes;
+    }
+
+    /*
+        Bytes allocated by MEASURED_LOOPS runs of loop, less whatever reading the
+        counter itself costs.
+    */
+    private static long allocatedBytes(Runnable loop) {
+        long threadId = Thread.currentThread().getId();
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_LOOPS; i++) {
+            loop.run();
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - start - overhead;
+    }
+
+    /*
+        Total JIT compilation time so far, or 0 if the JVM does not report it, in which
+        case only the allocation decides when the warm-up is done.
+    */
+    private static long compilationMillis() {
+        return compilationBean != null && compilationBean.isCompilationTimeMonitoringSupported()
+            ? compilationBean.getTotalCompilationTime() : 0;
+    }
+}
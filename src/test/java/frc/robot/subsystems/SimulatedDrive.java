@@ -0,0 +1,30 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.hal.HAL;
+
+/*
+    The Drive singleton on simulated IO, shared by the tests that need it. Drive can
+    only be created once per JVM, so the tests get it from here to be able to reach
+    its module IO whichever of them runs first. The odometry thread is never started,
+    tests call updateOdometry() themselves.
+*/
+final class SimulatedDrive {
+
+    // In the order Drive.getInstance takes them: FL, BL, FR, BR
+    static final SwerveModuleIOSim[] MODULE_IOS = {
+        new SwerveModuleIOSim(), new SwerveModuleIOSim(), new SwerveModuleIOSim(), new SwerveModuleIOSim(),
+    };
+    static final Drive DRIVE;
+
+    static {
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Could not initialize the HAL");
+        }
+        NavXGyro gyro = NavXGyro.getInstance(new GyroIOSim());
+        DRIVE = Drive.getInstance(gyro, MODULE_IOS[0], MODULE_IOS[1], MODULE_IOS[2], MODULE_IOS[3]);
+    }
+
+    private SimulatedDrive() {
+        throw new UnsupportedOperationException("This is a utility class!");
+    }
+}
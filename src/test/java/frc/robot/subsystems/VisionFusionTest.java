@@ -0,0 +1,144 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.VisionConstants;
+
+/*
+    Checks the vision fusion in Drive.addVisionMeasurement. The robot drives straight
+    ahead at SPEED with the HAL clock paused and stepped one odometry period at a
+    time, while odometry starts out FIELD_OFFSET_X, FIELD_OFFSET_Y from where the
+    robot really is. The camera sees the true pose as it was LATENCY seconds before
+    each measurement arrives, the way PhotonVision results do. Then the outlier gate
+    is checked: measurements too far from where the robot was are thrown away, until
+    kVisionMaxRejectionsInARow of them say the odometry is the one that is wrong.
+*/
+public class VisionFusionTest {
+
+    private static final double SPEED = 2.0;
+    private static final double LATENCY = 0.1;
+    private static final double FIELD_OFFSET_X = 0.3;
+    private static final double FIELD_OFFSET_Y = -0.2;
+    // Equal to the state standard deviation, so each measurement corrects half the error
+    private static final double STD_DEV = VisionConstants.kStateStdDevMeters;
+    private static final double TOLERANCE = 0.005;
+
+    private static final Drive drive = SimulatedDrive.DRIVE;
+
+    private double startTimestamp;
+    private double distance;
+
+    @BeforeAll
+    public static void pauseTiming() {
+        SimHooks.pauseTiming();
+    }
+
+    @AfterAll
+    public static void resumeTiming() {
+        SimHooks.resumeTiming();
+    }
+
+    @BeforeEach
+    public void reset() {
+        distance = 0;
+        for (SwerveModuleIOSim io : SimulatedDrive.MODULE_IOS) {
+            io.setDrivePosition(0);
+        }
+        drive.resetOdometry(new Pose2d());
+        startTimestamp = Timer.getFPGATimestamp();
+        driveFor(0.5);
+    }
+
+    @Test
+    public void latencyShiftedMeasurementsCorrectThePoseNow() {
+        converge(FIELD_OFFSET_X, FIELD_OFFSET_Y);
+        // Had the latency been ignored the pose would be SPEED * LATENCY behind
+        assertTruePose(FIELD_OFFSET_X, FIELD_OFFSET_Y);
+    }
+
+    @Test
+    public void outliersAreRejected() {
+        converge(FIELD_OFFSET_X, FIELD_OFFSET_Y);
+        Pose2d before = drive.getPose();
+        assertFalse(measure(FIELD_OFFSET_X + VisionConstants.kVisionMaxErrorMeters * 3, FIELD_OFFSET_Y));
+        assertFalse(measure(FIELD_OFFSET_X, FIELD_OFFSET_Y - VisionConstants.kVisionMaxErrorMeters * 2));
+        assertEquals(before, drive.getPose());
+    }
+
+    @Test
+    public void repeatedOutliersAreTrustedInTheEnd() {
+        converge(FIELD_OFFSET_X, FIELD_OFFSET_Y);
+        // The robot is pushed sideways without the wheels seeing it
+        double pushedY = FIELD_OFFSET_Y + VisionConstants.kVisionMaxErrorMeters * 1.5;
+        for (int i = 0; i < VisionConstants.kVisionMaxRejectionsInARow; i++) {
+            driveFor(0.02);
+            assertFalse(measure(FIELD_OFFSET_X, pushedY));
+        }
+        converge(FIELD_OFFSET_X, pushedY);
+        assertTruePose(FIELD_OFFSET_X, pushedY);
+    }
+
+    @Test
+    public void measurementsOlderThanTheHistoryAreRejected() {
+        driveFor(VisionConstants.kPoseHistorySeconds);
+        double timestamp = Timer.getFPGATimestamp() - VisionConstants.kPoseHistorySeconds - 0.1;
+        assertFalse(drive.addVisionMeasurement(trueX(timestamp, FIELD_OFFSET_X), FIELD_OFFSET_Y, 0, timestamp,
+            STD_DEV, STD_DEV));
+    }
+
+    /*
+        Keep driving and measuring until the measurements have pulled the pose onto the
+        true one, asserting each is accepted.
+    */
+    private void converge(double offsetX, double offsetY) {
+        for (int i = 0; i < 30; i++) {
+            driveFor(0.02);
+            assertTrue(measure(offsetX, offsetY), "Measurement " + i + " rejected");
+        }
+    }
+
+    /*
+        A measurement of the true pose LATENCY seconds ago, arriving now.
+    */
+    private boolean measure(double offsetX, double offsetY) {
+        double timestamp = Timer.getFPGATimestamp() - LATENCY;
+        return drive.addVisionMeasurement(trueX(timestamp, offsetX), offsetY, 0, timestamp, STD_DEV, STD_DEV);
+    }
+
+    private double trueX(double timestamp, double offsetX) {
+        return offsetX + SPEED * (timestamp - startTimestamp);
+    }
+
+    private void assertTruePose(double offsetX, double offsetY) {
+        Pose2d pose = drive.getPose();
+        assertEquals(trueX(Timer.getFPGATimestamp(), offsetX), pose.getX(), TOLERANCE);
+        assertEquals(offsetY, pose.getY(), TOLERANCE);
+        assertEquals(0, pose.getRotation().getRadians(), 1e-6);
+    }
+
+    /*
+        Drive straight ahead, one odometry update per odometry period.
+    */
+    private void driveFor(double seconds) {
+        int updates = (int) Math.round(seconds / DriveConstants.kOdometryPeriodSeconds);
+        for (int i = 0; i < updates; i++) {
+            SimHooks.stepTiming(DriveConstants.kOdometryPeriodSeconds);
+            distance += SPEED * DriveConstants.kOdometryPeriodSeconds;
+            for (SwerveModuleIOSim io : SimulatedDrive.MODULE_IOS) {
+                io.setDrivePosition(distance);
+            }
+            drive.updateOdometry();
+        }
+    }
+}